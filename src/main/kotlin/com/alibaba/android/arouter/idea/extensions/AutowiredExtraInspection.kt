@@ -0,0 +1,49 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.codeInspection.LocalInspectionTool
+import com.intellij.codeInspection.ProblemHighlightType
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiElementVisitor
+
+/**
+ * withXxx("key", value) 的 key 在目标类里没有 @Autowired 字段，或者基本类型对不上(比如 withString 传给 int 字段)。
+ *
+ * 目标类的字段和类型都查 [RouteIndex]；目标里有依赖库的类时没有字段记录，不检查。
+ * 只记录了目标类自己的字段，扫描时记下继承了工程里父类的目标类，这些找不到 key 也不报。
+ */
+class AutowiredExtraInspection : LocalInspectionTool() {
+
+    override fun buildVisitor(holder: ProblemsHolder, isOnTheFly: Boolean): PsiElementVisitor {
+        val index = RouteIndex.getInstance(holder.project)
+        if (!index.prepareForInspection(isOnTheFly)) return PsiElementVisitor.EMPTY_VISITOR
+        return object : PsiElementVisitor() {
+            override fun visitElement(element: PsiElement) {
+                val argument = AutowiredExtras.keyArgumentOf(element) ?: return
+                val key = AutowiredExtras.keyOf(argument) ?: return
+                val targets = AutowiredExtras.targetsOf(element) ?: return
+                if (targets.isEmpty() || targets.any { it.fileUrl == null }) return
+
+                val classNames = targets.map { it.className }.distinct()
+                val fields = classNames.flatMap { index.autowiredFields(it) }.filter { it.key == key }
+                if (fields.isEmpty()) {
+                    if (classNames.any { index.inheritsSourceClass(it) }) return
+                    val names = classNames.joinToString(", ") { it.substringAfterLast('.') }
+                    holder.registerProblem(argument, "No @Autowired field '$key' in $names", ProblemHighlightType.GENERIC_ERROR_OR_WARNING)
+                    return
+                }
+
+                if (fields.any { it.type == AutowiredExtras.UNKNOWN_TYPE }) return
+                val methodName = AutowiredExtras.methodName(element) ?: return
+                val expected = AutowiredExtras.expectedType(methodName) ?: return
+                val field = fields.firstOrNull { AutowiredExtras.isBasicType(it.type) && it.type != expected } ?: return
+                if (fields.any { it.type == expected }) return
+                holder.registerProblem(
+                    argument,
+                    "'$key' is ${field.type} in ${field.className.substringAfterLast('.')}, but passed with $methodName",
+                    ProblemHighlightType.GENERIC_ERROR_OR_WARNING
+                )
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiCompiledElement
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiExpression
+import com.intellij.psi.PsiExpressionList
+import com.intellij.psi.PsiField
+import com.intellij.psi.PsiLiteralExpression
+import com.intellij.psi.PsiManager
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.psi.PsiType
+import com.intellij.psi.util.PsiTreeUtil
+import org.jetbrains.kotlin.asJava.toLightAnnotation
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import org.jetbrains.kotlin.psi.KtExpression
+import org.jetbrains.kotlin.psi.KtNameReferenceExpression
+import org.jetbrains.kotlin.psi.KtProperty
+import org.jetbrains.kotlin.psi.KtStringTemplateExpression
+import org.jetbrains.kotlin.psi.KtValueArgument
+import org.jetbrains.kotlin.psi.KtValueArgumentList
+
+/**
+ * build(path).withXxx("key", value) 传的参数和目标类 @Autowired 字段的对应关系。
+ *
+ * 扫描时把 @Route 类的 @Autowired 字段(key、类型)记进 [RouteIndex]；
+ * 编辑器里从 withXxx 往前找到 build 调用([RouteCalls.chainedBuildCallOf])，按路径查表，不再解析目标类。
+ */
+object AutowiredExtras {
+
+    const val AUTOWIRED_ANNOTATION_NAME = "com.alibaba.android.arouter.facade.annotation.Autowired"
+    const val AUTOWIRED_SHORT_NAME = "Autowired"
+    const val NAME_ATTRIBUTE = "name"
+
+    // 没写类型、靠初始值推断的 kotlin 属性，不做类型检查
+    const val UNKNOWN_TYPE = ""
+
+    private const val WITH_PREFIX = "with"
+
+    // with 开头但第一个参数不是 key 的方法
+    private val NOT_EXTRA_METHODS = setOf("withAction", "withFlags", "withTransition", "withOptionsCompat")
+
+    // 基本类型和 String：Postcard 方法名后缀和字段类型都归到这几种
+    private val BASIC_TYPES = setOf("String", "Int", "Long", "Boolean", "Short", "Byte", "Char", "Float", "Double")
+    private val BOXED_TYPES = mapOf("Integer" to "Int", "Character" to "Char")
+
+    // 这些包里的父类不会有 @Autowired 字段
+    private val FRAMEWORK_PACKAGES = listOf("android.", "androidx.", "java.", "kotlin.")
+
+    /**
+     * java @Route 类上的 @Autowired 字段
+     */
+    fun javaExtras(psiClass: PsiClass, className: String): List<RouteExtra> {
+        return psiClass.fields.mapNotNull { field ->
+            val annotation = field.getAnnotation(AUTOWIRED_ANNOTATION_NAME) ?: return@mapNotNull null
+            val name = PathResolver.javaPath(annotation.findDeclaredAttributeValue(NAME_ATTRIBUTE) as? PsiExpression)
+            RouteExtra(className, name.takeUnless { it.isNullOrEmpty() } ?: field.name, typeOf(field.type), field.textOffset)
+        }
+    }
+
+    /**
+     * kotlin @Route 类上的 @Autowired 属性，没写类型的记成 [UNKNOWN_TYPE]
+     */
+    fun kotlinExtras(ktClass: KtClassOrObject, className: String): List<RouteExtra> {
+        return ktClass.declarations.filterIsInstance<KtProperty>().mapNotNull { property ->
+            val annotationEntry = property.annotationEntries.firstOrNull {
+                it.shortName?.asString() == AUTOWIRED_SHORT_NAME && it.toLightAnnotation()?.qualifiedName == AUTOWIRED_ANNOTATION_NAME
+            } ?: return@mapNotNull null
+            val argument = annotationEntry.valueArguments.firstOrNull { it.getArgumentName()?.asName?.asString() == NAME_ATTRIBUTE }
+            val name = PathResolver.kotlinPath(argument?.getArgumentExpression())
+            val type = property.typeReference?.text?.let { typeOf(it) } ?: UNKNOWN_TYPE
+            RouteExtra(className, name.takeUnless { it.isNullOrEmpty() } ?: property.name ?: return@mapNotNull null, type, property.textOffset)
+        }
+    }
+
+    fun typeOf(type: PsiType): String = typeOf(type.canonicalText)
+
+    /**
+     * int、java.lang.Integer、Int? 都归成 Int，其它类型保留原文
+     */
+    fun typeOf(text: String): String {
+        val simple = text.removeSuffix("?").removePrefix("kotlin.").removePrefix("java.lang.")
+        val basic = BOXED_TYPES[simple] ?: simple.replaceFirstChar { it.uppercaseChar() }
+        return if (basic in BASIC_TYPES) basic else text
+    }
+
+    /**
+     * withInt 这类方法要求的字段类型，withObject、withParcelable 等不检查
+     */
+    fun expectedType(methodName: String): String? {
+        return methodName.removePrefix(WITH_PREFIX).takeIf { it in BASIC_TYPES }
+    }
+
+    fun isBasicType(type: String): Boolean = type in BASIC_TYPES
+
+    /**
+     * literal 是 withXxx("key", ...) 的 key 时返回这个调用，只看名字不解析
+     */
+    fun extraCallOf(literal: PsiElement): PsiElement? {
+        return when (literal) {
+            is PsiLiteralExpression -> {
+                val list = literal.parent as? PsiExpressionList ?: return null
+                if (list.expressions.firstOrNull() != literal) return null
+                (list.parent as? PsiMethodCallExpression)?.takeIf { isExtraMethod(it.methodExpression.referenceName) }
+            }
+            is KtStringTemplateExpression -> {
+                val argument = literal.parent as? KtValueArgument ?: return null
+                val list = argument.parent as? KtValueArgumentList ?: return null
+                if (list.arguments.firstOrNull() != argument) return null
+                (list.parent as? KtCallExpression)?.takeIf { isExtraMethod(methodName(it)) }
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * call 是 withXxx(key, ...) 时返回 key 参数，字面量和常量都可以
+     */
+    fun keyArgumentOf(call: PsiElement): PsiElement? {
+        if (!isExtraMethod(methodName(call))) return null
+        return when (call) {
+            is PsiMethodCallExpression -> call.argumentList.expressions.firstOrNull()
+            is KtCallExpression -> call.valueArguments.firstOrNull()?.getArgumentExpression()
+            else -> null
+        }
+    }
+
+    /**
+     * key 参数的值
+     */
+    fun keyOf(argument: PsiElement): String? {
+        return when (argument) {
+            is PsiExpression -> PathResolver.javaPath(argument)
+            is KtExpression -> PathResolver.kotlinPath(argument)
+            else -> null
+        }
+    }
+
+    fun methodName(call: PsiElement): String? {
+        return when (call) {
+            is PsiMethodCallExpression -> call.methodExpression.referenceName
+            is KtCallExpression -> (call.calleeExpression as? KtNameReferenceExpression)?.getReferencedName()
+            else -> null
+        }
+    }
+
+    /**
+     * withXxx 调用对应的路由目标；不在 build 链上或路径算不出来返回 null
+     */
+    fun targetsOf(call: PsiElement): List<RouteTarget>? {
+        val buildCall = RouteCalls.chainedBuildCallOf(call) ?: return null
+        val path = RouteCalls.pathOf(buildCall) ?: return null
+        return RouteIndex.getInstance(call.project).targets(path)
+    }
+
+    /**
+     * 目标类里 key 对应的 @Autowired 字段
+     */
+    fun fieldsOf(call: PsiElement, key: String): List<AutowiredField> {
+        val index = RouteIndex.getInstance(call.project)
+        return targetsOf(call).orEmpty().map { it.className }.distinct()
+            .flatMap { index.autowiredFields(it) }
+            .filter { it.key == key }
+    }
+
+    /**
+     * 路由类有工程源码里的父类(不算 android 框架的类)。只记录了路由类自己的 @Autowired 字段，
+     * 父类里可能还有，这时找不到 key 不能算错。扫描时算好记进 [RouteIndex]，高亮时不用解析。
+     */
+    fun hasSourceSuperclass(psiClass: PsiClass): Boolean {
+        val visited = HashSet<PsiClass>()
+        var superClass = psiClass.superClass
+        while (superClass != null && visited.add(superClass)) {
+            val name = superClass.qualifiedName ?: return false
+            if (FRAMEWORK_PACKAGES.any { name.startsWith(it) }) return false
+            if (superClass !is PsiCompiledElement) return true
+            superClass = superClass.superClass
+        }
+        return false
+    }
+
+    /**
+     * 按记录的文件和 offset 找回字段的 PSI
+     */
+    fun resolve(project: Project, field: AutowiredField): PsiElement? {
+        val file = VirtualFileManager.getInstance().findFileByUrl(field.fileUrl) ?: return null
+        val psiFile = PsiManager.getInstance(project).findFile(file) ?: return null
+        return PsiTreeUtil.getParentOfType(psiFile.findElementAt(field.offset), PsiField::class.java, KtProperty::class.java)
+    }
+
+    private fun isExtraMethod(name: String?): Boolean {
+        name ?: return false
+        return name.length > WITH_PREFIX.length && name.startsWith(WITH_PREFIX) && name !in NOT_EXTRA_METHODS
+    }
+}
+
+/**
+ * 源码里 @Route 类的一个 @Autowired 字段，offset 是字段名的位置
+ */
+data class RouteExtra(val className: String, val key: String, val type: String, val offset: Int)
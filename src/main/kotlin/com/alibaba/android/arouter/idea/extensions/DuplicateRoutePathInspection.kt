@@ -0,0 +1,102 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.analysis.AnalysisScope
+import com.intellij.codeInspection.GlobalInspectionContext
+import com.intellij.codeInspection.GlobalInspectionTool
+import com.intellij.codeInspection.InspectionManager
+import com.intellij.codeInspection.LocalInspectionTool
+import com.intellij.codeInspection.ProblemDescriptionsProcessor
+import com.intellij.codeInspection.ProblemHighlightType
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiElementVisitor
+import com.intellij.psi.PsiManager
+import com.intellij.psi.util.PsiTreeUtil
+import org.jetbrains.kotlin.psi.KtClassOrObject
+
+/**
+ * 同一个路径被多个类声明，ARouter 运行时只会留下其中一个。
+ *
+ * 批量检查时对 [RouteIndex] 的全部路由按路径分组，一遍扫完，只留源码里声明过的路径；依赖库的路由取 [RouteIndex.allTargets] 的快照，
+ * 不经过按 group 加载的缓存，不会把编辑器跳转常用的 group 挤出去。编辑器里由 [Local] 对单个 @Route 查表。
+ */
+class DuplicateRoutePathInspection : GlobalInspectionTool() {
+
+    override fun getSharedLocalInspectionTool(): LocalInspectionTool = Local()
+
+    override fun isGraphNeeded(): Boolean = false
+
+    override fun runInspection(
+        scope: AnalysisScope,
+        manager: InspectionManager,
+        globalContext: GlobalInspectionContext,
+        processor: ProblemDescriptionsProcessor
+    ) {
+        val project = manager.project
+        val byPath = HashMap<String, MutableList<RouteTarget>>()
+        ReadAction.run<RuntimeException> {
+            val index = RouteIndex.getInstance(project)
+            index.verify()
+            // 只有依赖库里重复的路径改不了，不用报
+            val sourcePaths = index.sourceEntries().second.targets.mapTo(HashSet()) { it.path }
+            index.allTargets().forEach { if (it.path in sourcePaths) byPath.getOrPut(it.path) { ArrayList(1) }.add(it) }
+        }
+
+        val psiManager = PsiManager.getInstance(project)
+        val fileManager = VirtualFileManager.getInstance()
+        for ((path, targets) in byPath) {
+            val classNames = targets.map { it.className }.distinct()
+            if (classNames.size < 2) continue
+            for (target in targets) {
+                val url = target.fileUrl ?: continue//依赖库里的只当作冲突对象
+                ReadAction.run<RuntimeException> {
+                    val file = fileManager.findFileByUrl(url) ?: return@run
+                    if (!scope.contains(file)) return@run
+                    val psiFile = psiManager.findFile(file) ?: return@run
+                    val declaration = PsiTreeUtil.getParentOfType(psiFile.findElementAt(target.offset), PsiClass::class.java, KtClassOrObject::class.java)
+                        ?: return@run
+                    val element = RouteFileScanner.declaredPathExpression(declaration) ?: declaration
+                    val descriptor = manager.createProblemDescriptor(
+                        element, message(path, target.className, classNames), false, null, ProblemHighlightType.GENERIC_ERROR_OR_WARNING
+                    )
+                    processor.addProblemElement(globalContext.refManager.getReference(psiFile), descriptor)
+                }
+            }
+        }
+    }
+
+    /**
+     * 编辑器里的检查：当前文件的每个 @Route 查一次路由表
+     */
+    class Local : LocalInspectionTool() {
+
+        override fun getShortName(): String = SHORT_NAME
+
+        override fun buildVisitor(holder: ProblemsHolder, isOnTheFly: Boolean): PsiElementVisitor {
+            val index = RouteIndex.getInstance(holder.project)
+            if (!index.prepareForInspection(isOnTheFly)) return PsiElementVisitor.EMPTY_VISITOR
+            return object : PsiElementVisitor() {
+                override fun visitElement(element: PsiElement) {
+                    val routeClass = RouteFileScanner.routeClassOf(element) ?: return
+                    val path = RouteFileScanner.declaredPath(routeClass) ?: return
+                    val className = (routeClass as? PsiClass)?.qualifiedName ?: (routeClass as? KtClassOrObject)?.fqName?.asString() ?: return
+                    val classNames = index.targets(path).map { it.className }.distinct()
+                    if (classNames.size < 2) return
+                    holder.registerProblem(RouteFileScanner.declaredPathExpression(routeClass) ?: element, message(path, className, classNames))
+                }
+            }
+        }
+    }
+
+    companion object {
+        const val SHORT_NAME = "ARouterDuplicateRoutePath"
+
+        private fun message(path: String, className: String, classNames: List<String>): String {
+            val others = classNames.filter { it != className }.joinToString(", ") { it.substringAfterLast('.') }
+            return "Route path '$path' is also declared by $others"
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread
+import com.intellij.openapi.actionSystem.AnAction
+import com.intellij.openapi.actionSystem.AnActionEvent
+
+/**
+ * Analyze 菜单里的 "Find Unused Routes"，结果显示在 ARouter 工具窗口
+ */
+class FindUnusedRoutesAction : AnAction() {
+
+    override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.BGT
+
+    override fun update(e: AnActionEvent) {
+        e.presentation.isEnabled = e.project != null
+    }
+
+    override fun actionPerformed(e: AnActionEvent) {
+        val project = e.project ?: return
+        RouteToolWindowFactory.show<UnusedRoutesPanel>(project) { it.refresh() }
+    }
+}
@@ -8,6 +8,8 @@ import com.intellij.notification.Notification
 import com.intellij.notification.NotificationType
 import com.intellij.notification.Notifications
 import com.intellij.openapi.editor.markup.GutterIconRenderer
+import com.intellij.openapi.project.DumbAware
+import com.intellij.openapi.project.DumbService
 import com.intellij.openapi.util.IconLoader
 import com.intellij.psi.PsiElement
 import org.jetbrains.annotations.NotNull
@@ -18,7 +20,7 @@ import java.awt.event.MouseEvent
 /**
  * 注解
  */
-class KtAnnotationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<PsiElement> {
+class KtAnnotationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<PsiElement>, DumbAware {
 
     override fun getLineMarkerInfo(element: PsiElement): LineMarkerInfo<*>? {
         return if (isARouterAnnotation(element)) {
@@ -32,6 +34,9 @@ class KtAnnotationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<P
     private fun isARouterAnnotation(element: PsiElement): Boolean {
 //        System.out.println(element.javaClass.name +" | "+ element.text)
         if (element is KtAnnotationEntry){
+            if (DumbService.isDumb(element.project)) {
+                return element.shortName?.asString() == RouteFileScanner.ROUTE_SHORT_NAME
+            }
             val fullName = element.toLightAnnotation()?.qualifiedName
             return NavigationHelper.ROUTE_ANNOTATION_NAME == fullName
         }
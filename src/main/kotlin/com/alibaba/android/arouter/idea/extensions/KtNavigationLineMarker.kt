@@ -7,6 +7,8 @@ import com.intellij.notification.Notification
 import com.intellij.notification.NotificationType
 import com.intellij.notification.Notifications
 import com.intellij.openapi.editor.markup.GutterIconRenderer
+import com.intellij.openapi.project.DumbAware
+import com.intellij.openapi.project.DumbService
 import com.intellij.openapi.util.IconLoader
 import com.intellij.psi.*
 import com.intellij.psi.impl.source.tree.java.PsiLiteralExpressionImpl
@@ -25,24 +27,42 @@ import java.util.function.Supplier
 /**
  * Mark navigation target.
  */
-class KtNavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<PsiElement> {
+class KtNavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<PsiElement>, DumbAware {
 
     override fun getLineMarkerInfo(element: PsiElement): LineMarkerInfo<*>? {
 //        System.out.println(element.javaClass.name +" | "+ element.text)
         return if (isNavigationCall(element)) {
             LineMarkerInfo(element,element.textRange, NavigationLineMarker.navigationOnIcon,null,this,GutterIconRenderer.Alignment.LEFT,
-                Supplier { "ARouter Marker" })
+                Supplier { RouteInterceptors.tooltip(element) })
         } else {
             null
         }
     }
 
     override fun navigate(e: MouseEvent?, psiElement: PsiElement?) {
+        if (psiElement is KtCallExpression && !DumbService.isDumb(psiElement.project)) {
+            // navigation(XxxService::class.java)
+            val serviceName = RouteServices.serviceClassOf(psiElement)
+            if (serviceName != null) {
+                if (!NavigationHelper.findServiceAndNavigate(psiElement, serviceName, e)) notifyNotFound()
+                return
+            }
+        }
         if (psiElement is KtCallExpression){
             val arguments = psiElement.valueArguments
             if (arguments.size == 1){
-                val targetPath = resolvePath(arguments[0])
-                val found = NavigationHelper.findTargetAndNavigate(psiElement, targetPath, e)
+                val pattern = if (DumbService.isDumb(psiElement.project)) null else RoutePattern.compile(arguments[0])
+                val found = if (pattern != null) {//"/item/$type" 这类动态路径
+                    NavigationHelper.findPatternTargetsAndNavigate(psiElement, pattern, e)
+                } else {
+                    val targetPath = if (DumbService.isDumb(psiElement.project)) {
+                        PathResolver.literalPath(arguments[0]) ?: ""
+                    } else {
+                        val argument = arguments[0].getArgumentExpression()
+                        PathResolver.kotlinPath(argument) ?: UriPaths.pathOf(argument) ?: resolvePath(arguments[0])
+                    }
+                    NavigationHelper.findTargetAndNavigate(psiElement, targetPath, e)
+                }
                 if (found){
                     return
                 }
@@ -72,8 +92,16 @@ class KtNavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<P
 
             val method = psiElement.getCallNameExpression() ?: return false
 
+            if (method.getReferencedName() == RouteServices.NAVIGATION_METHOD) {
+                return !DumbService.isDumb(psiElement.project) && RouteServices.serviceClassOf(psiElement) != null
+            }
             if (method.getReferencedName() == "build") {
-                if (isClassOfARouter(findContainingClassName(psiElement))) {
+                if (DumbService.isDumb(psiElement.project)) {
+                    // 索引没建好时不能 resolve，只按文本判断 ARouter.getInstance().build(...)
+                    val receiver = (psiElement.parent as? KtDotQualifiedExpression)?.receiverExpression ?: return false
+                    return receiver.text.contains(SDK_NAME)
+                }
+                if (NavigationHelper.isClassOfARouter(findContainingClassName(psiElement))) {
                     return true
                 }
             }
@@ -87,24 +115,6 @@ class KtNavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<P
         return ((classDescriptor as LazyJavaClassDescriptor).jClass as JavaClassImpl).psi
     }
 
-    /**
-     * Judge whether the caller was ARouter
-     */
-    private fun isClassOfARouter(psiClass: PsiClass?): Boolean {
-        if (psiClass == null){
-            return false
-        }
-        // It was ARouter
-        if (psiClass.name.equals(SDK_NAME)) {
-            return true
-        }
-
-        // It super class was ARouter
-        psiClass.supers.find { it.name == SDK_NAME } ?: return false
-
-        return true
-    }
-
     companion object {
         const val SDK_NAME = "ARouter"
 
@@ -0,0 +1,64 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.application.ApplicationManager
+
+/**
+ * 应用级的依赖库路由缓存，所有打开的工程共用。
+ *
+ * jar 的概要([JarRoutes])以 jar 内容 hash 为 key，同一个 SDK jar 只解析一次；按需加载的 group 也单独放进来。
+ * 每个条目按记录条数计重量，总量超出时淘汰最久未使用的条目，所以后来才加载的 group 也算在限额里。
+ */
+class LibraryRouteCache {
+
+    private val entries = LinkedHashMap<String, Entry>(16, 0.75f, true)
+    private var totalWeight = 0
+
+    fun get(hash: String, loader: () -> JarRoutes): JarRoutes = load(hash, loader) { it.weight }
+
+    /**
+     * jar 里一个 group 的路由
+     */
+    fun group(hash: String, group: String, loader: () -> List<LibraryRoute>): List<LibraryRoute> = load("$hash/$group", loader) { it.size }
+
+    fun clear() {
+        synchronized(entries) {
+            entries.clear()
+            totalWeight = 0
+        }
+    }
+
+    // jar 和 group 的 key 格式不同，同一个 key 下的值类型总是一样的
+    @Suppress("UNCHECKED_CAST")
+    private fun <T : Any> load(key: String, loader: () -> T, weightOf: (T) -> Int): T {
+        synchronized(entries) {
+            entries[key]?.let { return it.value as T }
+        }
+        // 解析放在锁外面，重复解析同一份内容也只是多做一次
+        val value = loader()
+        synchronized(entries) {
+            entries[key]?.let { return it.value as T }
+            val weight = maxOf(1, weightOf(value))
+            entries[key] = Entry(value, weight)
+            totalWeight += weight
+            trim()
+        }
+        return value
+    }
+
+    // 刚放进来的条目在最后，至少保留它
+    private fun trim() {
+        val iterator = entries.values.iterator()
+        while (totalWeight > MAX_CACHED_ROUTES && entries.size > 1 && iterator.hasNext()) {
+            totalWeight -= iterator.next().weight
+            iterator.remove()
+        }
+    }
+
+    private class Entry(val value: Any, val weight: Int)
+
+    companion object {
+        const val MAX_CACHED_ROUTES = 100_000
+
+        fun getInstance(): LibraryRouteCache = ApplicationManager.getApplication().getService(LibraryRouteCache::class.java)
+    }
+}
@@ -0,0 +1,344 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.vfs.JarFileSystem
+import com.intellij.openapi.vfs.VirtualFile
+import org.jetbrains.org.objectweb.asm.ClassReader
+import org.jetbrains.org.objectweb.asm.ClassVisitor
+import org.jetbrains.org.objectweb.asm.MethodVisitor
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Type
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 依赖库(aar/jar)里的路由。
+ *
+ * 不走 PSI，直接读 ARouter 编译期生成的 `ARouter$$Root$$xxx` / `ARouter$$Group$$xxx` class 字节码，
+ * 解析出 path -> 目标类 的映射，按 jar 内容的 hash(目录按生成类的时间戳)缓存在 [LibraryRouteCache]。
+ * 和 ARouter 运行时一样，Group 类的内容按需加载。
+ */
+object LibraryRouteIndexer {
+
+    private val LOG = Logger.getInstance(LibraryRouteIndexer::class.java)
+
+    const val ROUTES_PACKAGE_PATH = "com/alibaba/android/arouter/routes"
+    const val ROOT_CLASS_PREFIX = "ARouter\$\$Root\$\$"
+    const val GROUP_CLASS_PREFIX = "ARouter\$\$Group\$\$"
+    const val PROVIDERS_CLASS_PREFIX = "ARouter\$\$Providers\$\$"
+    const val INTERCEPTORS_CLASS_PREFIX = "ARouter\$\$Interceptors\$\$"
+
+    private const val ROUTE_META_INTERNAL_NAME = "com/alibaba/android/arouter/facade/model/RouteMeta"
+    private const val LOAD_INTO_METHOD = "loadInto"
+
+    // jar path -> (stamp, hash)，避免每次都重新计算 hash
+    private val hashByJar = ConcurrentHashMap<String, Pair<Long, String>>()
+
+    /**
+     * 解析单个 classes 根目录(jar 或目录)，没有生成类的返回 null。要算 jar 的 hash，只在后台调用，可以取消。
+     * 这里只读 Root/Providers/Interceptors，Group 类的内容等查到这个 group 时再解析。
+     */
+    fun indexRoot(root: VirtualFile): JarRoutes? {
+        val routesDir = root.findFileByRelativePath(ROUTES_PACKAGE_PATH) ?: return null
+        val jar = JarFileSystem.getInstance().getVirtualFileForJar(root)
+        val key = (if (jar != null) contentHash(jar) else directoryKey(root, routesDir)) ?: return parseRoutesDir(root, routesDir, null)
+        return LibraryRouteCache.getInstance().get(key) { parseRoutesDir(root, routesDir, key) }
+    }
+
+    private fun parseRoutesDir(root: VirtualFile, routesDir: VirtualFile, key: String?): JarRoutes {
+        // group -> Group 类文件的相对路径
+        val groups = HashMap<String, MutableList<String>>()
+        val providers = ArrayList<LibraryRoute>()
+        val children = routesDir.children
+
+        // Root 里登记了 group -> Group 类
+        children.filter { it.name.startsWith(ROOT_CLASS_PREFIX) }.forEach { rootClass ->
+            for (entry in parseClass(rootClass)) {
+                val relativePath = entry.className.replace('.', '/') + ".class"
+                groups.getOrPut(entry.key) { ArrayList(1) }.add(relativePath)
+            }
+        }
+        // 兜底：Root 里没登记的 Group，类名后缀就是 group
+        val registered = groups.values.flatten().toSet()
+        children.filter { it.name.startsWith(GROUP_CLASS_PREFIX) && "$ROUTES_PACKAGE_PATH/${it.name}" !in registered }.forEach {
+            groups.getOrPut(it.nameWithoutExtension.removePrefix(GROUP_CLASS_PREFIX)) { ArrayList(1) }.add("$ROUTES_PACKAGE_PATH/${it.name}")
+        }
+        children.filter { it.name.startsWith(PROVIDERS_CLASS_PREFIX) }.forEach { providers.addAll(parseClass(it)) }
+        val interceptors = children.filter { it.name.startsWith(INTERCEPTORS_CLASS_PREFIX) }
+            .flatMap { parseInterceptors(it) }
+            .sortedWith(LibraryInterceptor.ORDER)
+        return JarRoutes(key, groups, providers, interceptors)
+    }
+
+    /**
+     * 解析一个 group 的 Group 类
+     */
+    fun parseGroup(root: VirtualFile, classFiles: List<String>): List<LibraryRoute> {
+        return classFiles.flatMap { relativePath ->
+            root.findFileByRelativePath(relativePath)?.let { parseClass(it) }.orEmpty()
+        }.filter { it.path == it.key }.distinct()
+    }
+
+    private fun parseClass(file: VirtualFile): List<LibraryRoute> {
+        if (file.extension != "class") return emptyList()
+        return try {
+            parseRouteClass(file.contentsToByteArray())
+        } catch (e: IOException) {
+            LOG.warn("Failed to read ${file.path}", e)
+            emptyList()
+        } catch (e: RuntimeException) {
+            // 混淆或者格式不对的 class，忽略
+            LOG.debug("Failed to parse ${file.path}", e)
+            emptyList()
+        }
+    }
+
+    /**
+     * 解析 loadInto(Map) 方法体，每个 Map.put 对应一条记录：
+     * - Root:      put("group", ARouter$$Group$$group.class)
+     * - Group:     put("/group/path", RouteMeta.build(type, Target.class, "/group/path", "group", ...))
+     * - Providers: put("com.x.Service", RouteMeta.build(type, Target.class, "/group/path", "group", ...))
+     */
+    fun parseRouteClass(bytes: ByteArray): List<LibraryRoute> {
+        val result = ArrayList<LibraryRoute>()
+        ClassReader(bytes).accept(object : ClassVisitor(Opcodes.ASM9) {
+            override fun visitMethod(access: Int, name: String?, descriptor: String?, signature: String?, exceptions: Array<out String>?): MethodVisitor? {
+                return if (name == LOAD_INTO_METHOD) LoadIntoVisitor(result) else null
+            }
+        }, ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES)
+        return result
+    }
+
+    private fun parseInterceptors(file: VirtualFile): List<LibraryInterceptor> {
+        if (file.extension != "class") return emptyList()
+        val result = ArrayList<LibraryInterceptor>()
+        try {
+            ClassReader(file.contentsToByteArray()).accept(object : ClassVisitor(Opcodes.ASM9) {
+                override fun visitMethod(access: Int, name: String?, descriptor: String?, signature: String?, exceptions: Array<out String>?): MethodVisitor? {
+                    return if (name == LOAD_INTO_METHOD) InterceptorsVisitor(result) else null
+                }
+            }, ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES)
+        } catch (e: IOException) {
+            LOG.warn("Failed to read ${file.path}", e)
+        } catch (e: RuntimeException) {
+            LOG.debug("Failed to parse ${file.path}", e)
+        }
+        return result
+    }
+
+    private fun contentHash(jar: VirtualFile): String? {
+        val stamp = jar.timeStamp xor (jar.length shl 20)
+        hashByJar[jar.path]?.let { if (it.first == stamp) return it.second }
+
+        val digest = MessageDigest.getInstance("SHA-1")
+        try {
+            jar.inputStream.use { input ->
+                val buffer = ByteArray(64 * 1024)
+                while (true) {
+                    ProgressManager.checkCanceled()
+                    val read = input.read(buffer)
+                    if (read < 0) break
+                    digest.update(buffer, 0, read)
+                }
+            }
+        } catch (e: IOException) {
+            LOG.warn("Failed to hash ${jar.path}", e)
+            return null
+        }
+        val hash = digest.digest().joinToString("") { "%02x".format(it) }
+        hashByJar[jar.path] = stamp to hash
+        return hash
+    }
+
+    /**
+     * 目录形式的 classes 根目录(比如模块的编译输出)没法算 hash，用路径加生成类的个数和时间戳，重新编译后换 key
+     */
+    private fun directoryKey(root: VirtualFile, routesDir: VirtualFile): String {
+        val children = routesDir.children
+        val stamp = children.maxOfOrNull { it.timeStamp } ?: routesDir.timeStamp
+        return "${root.url}#${children.size}#$stamp"
+    }
+
+    private class LoadIntoVisitor(private val out: MutableList<LibraryRoute>) : MethodVisitor(Opcodes.ASM9) {
+        private val strings = ArrayList<String>(4)
+        private var target: String? = null
+        private var isRouteMeta = false
+
+        override fun visitLdcInsn(value: Any?) {
+            when (value) {
+                is String -> strings.add(value)
+                is Type -> if (target == null && value.sort == Type.OBJECT) target = value.className
+            }
+        }
+
+        override fun visitMethodInsn(opcode: Int, owner: String?, name: String?, descriptor: String?, isInterface: Boolean) {
+            if (owner == ROUTE_META_INTERNAL_NAME && name == "build") {
+                isRouteMeta = true
+            } else if (owner == "java/util/Map" && name == "put") {
+                val className = target
+                if (className != null && strings.isNotEmpty()) {
+                    val key = strings[0]
+                    out.add(
+                        if (isRouteMeta) {
+                            LibraryRoute(strings.getOrElse(1) { key }, strings.getOrNull(2), className.replace('$', '.'), key)
+                        } else {
+                            // Root 记录：path 为空，key 为 group
+                            LibraryRoute("", key, className, key)
+                        }
+                    )
+                }
+                strings.clear()
+                target = null
+                isRouteMeta = false
+            }
+        }
+    }
+}
+
+/**
+ * Interceptors 类的 loadInto(Map<Integer, Class>)：put(priority, Interceptor.class)，priority 是 int 常量再装箱
+ */
+private class InterceptorsVisitor(private val out: MutableList<LibraryInterceptor>) : MethodVisitor(Opcodes.ASM9) {
+    private var priority: Int? = null
+    private var target: String? = null
+
+    override fun visitInsn(opcode: Int) {
+        if (opcode in Opcodes.ICONST_M1..Opcodes.ICONST_5) priority = opcode - Opcodes.ICONST_0
+    }
+
+    override fun visitIntInsn(opcode: Int, operand: Int) {
+        if (opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH) priority = operand
+    }
+
+    override fun visitLdcInsn(value: Any?) {
+        when (value) {
+            is Int -> priority = value
+            is Type -> if (value.sort == Type.OBJECT) target = value.className
+        }
+    }
+
+    override fun visitMethodInsn(opcode: Int, owner: String?, name: String?, descriptor: String?, isInterface: Boolean) {
+        if (owner == "java/util/Map" && name == "put") {
+            val className = target
+            val value = priority
+            if (className != null && value != null) out.add(LibraryInterceptor(value, className.replace('$', '.')))
+            priority = null
+            target = null
+        }
+    }
+}
+
+/**
+ * 一个 jar 里的路由：group -> Group 类，Providers(服务接口 -> 实现)，以及按优先级排好的拦截器
+ *
+ * @param key 在 [LibraryRouteCache] 里的 key，加载的 group 也按它缓存；算不出 hash 时为空，group 每次都重新解析
+ */
+class JarRoutes(
+    private val key: String?,
+    private val groupClasses: Map<String, List<String>>,
+    val providers: List<LibraryRoute>,
+    val interceptors: List<LibraryInterceptor>
+) {
+
+    // @Route(group = "xxx") 指定了 group 的路径 -> group，第一次用到时才算
+    @Volatile
+    private var pathGroups: Map<String, String>? = null
+
+    val groups: Set<String>
+        get() = groupClasses.keys
+
+    /**
+     * 用于缓存的容量统计，加载的 group 在缓存里单独计算
+     */
+    val weight: Int
+        get() = groupClasses.size + providers.size + interceptors.size
+
+    /**
+     * 路径不在默认分组(第一段)里时，它显式指定的 group。
+     * 只在默认分组里查不到时调用：第一次会把全部 group 读一遍，读到的 group 经 [routes] 留在缓存里，不会再解析一次
+     */
+    fun explicitGroupOf(path: String, root: VirtualFile): String? {
+        val known = pathGroups ?: HashMap<String, String>().also { result ->
+            for (group in groups) {
+                ProgressManager.checkCanceled()
+                routes(group, root).forEach { if (RouteTable.groupOf(it.path) != group) result[it.path] = group }
+            }
+            pathGroups = result
+        }
+        return known[path]
+    }
+
+    /**
+     * root 是当前工程里这个 jar 的位置，同样内容的 jar 可能在不同路径
+     */
+    fun routes(group: String, root: VirtualFile): List<LibraryRoute> {
+        val classFiles = groupClasses[group] ?: return emptyList()
+        val cacheKey = key ?: return LibraryRouteIndexer.parseGroup(root, classFiles)
+        return LibraryRouteCache.getInstance().group(cacheKey, group) { LibraryRouteIndexer.parseGroup(root, classFiles) }
+    }
+
+    /**
+     * 直接解析一个 group，不放进缓存；导出这类每个 group 只读一次的遍历用它，不会把常用的 group 挤出去
+     */
+    fun parseRoutes(group: String, root: VirtualFile): List<LibraryRoute> {
+        return LibraryRouteIndexer.parseGroup(root, groupClasses[group] ?: return emptyList())
+    }
+}
+
+/**
+ * 一个工程依赖的全部带路由的 classes 根目录，按 group 建好查找表，查一个路径只碰有这个 group 的 jar；
+ * 默认分组里查不到时再看各个 jar 里显式指定了 group 的路径
+ */
+class LibraryRoutes(val jars: List<Pair<VirtualFile, JarRoutes>>) {
+
+    private val jarsByGroup = HashMap<String, MutableList<Pair<VirtualFile, JarRoutes>>>()
+
+    /**
+     * 全部依赖的全部路由，给前缀树、搜索这类整体遍历用。第一次用到时直接解析，不经过 [LibraryRouteCache]，
+     * 跟着这组依赖保留，依赖变化后整个对象换掉；源码改动不会让它重新解析，也不会把缓存里常用的 group 挤出去
+     */
+    val allRoutes: List<LibraryRoute> by lazy {
+        jars.flatMap { (root, jar) -> jar.groups.flatMap { jar.parseRoutes(it, root) } }
+    }
+
+    init {
+        for (jar in jars) {
+            jar.second.groups.forEach { jarsByGroup.getOrPut(it) { ArrayList(1) }.add(jar) }
+        }
+    }
+
+    fun routes(path: String): List<LibraryRoute> {
+        val result = ArrayList<LibraryRoute>(0)
+        val group = RouteTable.groupOf(path)
+        jarsByGroup[group]?.forEach { (root, jar) -> jar.routes(group, root).filterTo(result) { it.path == path } }
+        if (result.isNotEmpty()) return result
+        for ((root, jar) in jars) {
+            val explicit = jar.explicitGroupOf(path, root) ?: continue
+            jar.routes(explicit, root).filterTo(result) { it.path == path }
+        }
+        return result
+    }
+
+    companion object {
+        val EMPTY = LibraryRoutes(emptyList())
+    }
+}
+
+/**
+ * 依赖库中的一条路由
+ *
+ * @param key Group 中与 path 相同；Providers 中为服务接口的全名
+ */
+data class LibraryRoute(val path: String, val group: String?, val className: String, val key: String)
+
+/**
+ * 依赖库中的一个 @Interceptor
+ */
+data class LibraryInterceptor(val priority: Int, val className: String) {
+
+    companion object {
+        val ORDER: Comparator<LibraryInterceptor> = compareBy({ it.priority }, { it.className })
+    }
+}
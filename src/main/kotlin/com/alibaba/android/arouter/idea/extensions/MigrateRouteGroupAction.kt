@@ -0,0 +1,196 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.notification.NotificationGroupManager
+import com.intellij.notification.NotificationType
+import com.intellij.openapi.actionSystem.ActionUpdateThread
+import com.intellij.openapi.actionSystem.AnAction
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.actionSystem.CommonDataKeys
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.Task
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.ui.DialogWrapper
+import com.intellij.openapi.ui.ValidationInfo
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.ElementManipulators
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiManager
+import com.intellij.psi.SmartPointerManager
+import com.intellij.psi.SmartPsiElementPointer
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.ui.components.JBTextField
+import com.intellij.util.ui.FormBuilder
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import javax.swing.JComponent
+
+/**
+ * 整组迁移路由，比如 /order/xxx → /checkout/xxx。
+ *
+ * 声明和调用都从 [RouteIndex] 里取；改写分块进行，每块一个 write command，
+ * 块之间可以取消，也不会攒出一个巨大的撤销记录。
+ * @Route 显式写的 group 等于原来的默认分组时一起改成新的，否则 ARouter 会把路由登记到旧的 group 里。
+ */
+class MigrateRouteGroupAction : AnAction() {
+
+    override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.BGT
+
+    override fun update(e: AnActionEvent) {
+        e.presentation.isEnabled = e.project != null
+    }
+
+    override fun actionPerformed(e: AnActionEvent) {
+        val project = e.getData(CommonDataKeys.PROJECT) ?: return
+        val dialog = MigrateDialog(project)
+        if (!dialog.showAndGet()) return
+        MigrateTask(project, dialog.sourcePrefix, dialog.targetPrefix).queue()
+    }
+
+    private class MigrateDialog(project: Project) : DialogWrapper(project) {
+
+        private val sourceField = JBTextField()
+        private val targetField = JBTextField()
+
+        val sourcePrefix: String
+            get() = normalizePrefix(sourceField.text)
+
+        val targetPrefix: String
+            get() = normalizePrefix(targetField.text)
+
+        init {
+            title = "Migrate Route Group"
+            init()
+        }
+
+        override fun createCenterPanel(): JComponent {
+            return FormBuilder.createFormBuilder()
+                .addLabeledComponent("From prefix (e.g. /order):", sourceField)
+                .addLabeledComponent("To prefix (e.g. /checkout):", targetField)
+                .panel
+        }
+
+        override fun getPreferredFocusedComponent(): JComponent = sourceField
+
+        override fun doValidate(): ValidationInfo? {
+            if (!isValidPrefix(sourcePrefix)) return ValidationInfo("Prefix must start with '/'", sourceField)
+            if (!isValidPrefix(targetPrefix)) return ValidationInfo("Prefix must start with '/'", targetField)
+            if (sourcePrefix == targetPrefix) return ValidationInfo("Prefixes are the same", targetField)
+            return null
+        }
+
+        private fun isValidPrefix(prefix: String): Boolean = prefix.length > 1 && prefix.startsWith("/") && prefix.none { it.isWhitespace() }
+    }
+
+    private class MigrateTask(project: Project, private val source: String, private val target: String) :
+        Task.Backgroundable(project, "Migrating routes $source → $target", true) {
+
+        private var migrated = 0
+
+        override fun run(indicator: ProgressIndicator) {
+            indicator.isIndeterminate = false
+            indicator.text = "Collecting routes under $source"
+            val literals = ReadAction.nonBlocking<List<Rewrite>> { collectLiterals() }
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .executeSynchronously()
+
+            literals.chunked(CHUNK_SIZE).forEachIndexed { chunkIndex, chunk ->
+                indicator.checkCanceled()
+                indicator.text = "Rewriting routes under $source"
+                indicator.fraction = chunkIndex * CHUNK_SIZE.toDouble() / literals.size
+                ApplicationManager.getApplication().invokeAndWait {
+                    WriteCommandAction.runWriteCommandAction(project, "Migrate Route Group", null, {
+                        chunk.forEach { rewrite(it) }
+                    })
+                }
+            }
+        }
+
+        /**
+         * 源码里路径落在 source 下的声明和调用，以及要跟着改的 group，按实际要改的字面量去重
+         */
+        private fun collectLiterals(): List<Rewrite> {
+            val index = RouteIndex.getInstance(project)
+            val psiManager = PsiManager.getInstance(project)
+            val fileManager = VirtualFileManager.getInstance()
+            val fileIndex = ProjectFileIndex.getInstance(project)
+            val pointerManager = SmartPointerManager.getInstance(project)
+            val literals = LinkedHashMap<PsiElement, Rewrite>()
+
+            fun add(expression: PsiElement?) {
+                val literal = PathResolver.sourceLiteral(expression) ?: return
+                val path = PathResolver.literalPath(literal) ?: return
+                if (!isUnderSource(path)) return
+                val file = literal.containingFile?.virtualFile ?: return
+                if (!fileIndex.isInContent(file)) return
+                literals.getOrPut(literal) { Rewrite(pointerManager.createSmartPsiElementPointer(literal), path, migrate(path), true) }
+            }
+
+            fun addGroup(expression: PsiElement?, path: String) {
+                val literal = PathResolver.sourceLiteral(expression) ?: return
+                val group = PathResolver.literalPath(literal) ?: return
+                val newGroup = RouteTable.groupOf(migrate(path))
+                if (group != RouteTable.groupOf(path) || group == newGroup) return
+                val file = literal.containingFile?.virtualFile ?: return
+                if (!fileIndex.isInContent(file)) return
+                literals.getOrPut(literal) { Rewrite(pointerManager.createSmartPsiElementPointer(literal), group, newGroup, false) }
+            }
+
+            // 依赖库里的路由改不了，只取源码路由表
+            val entries = index.sourceEntries().second
+            entries.targets.filter { isUnderSource(it.path) }.forEach { route ->
+                val file = route.fileUrl?.let { fileManager.findFileByUrl(it) }?.let { psiManager.findFile(it) } ?: return@forEach
+                val declaration = PsiTreeUtil.getParentOfType(file.findElementAt(route.offset), PsiClass::class.java, KtClassOrObject::class.java)
+                add(declaration?.let { RouteFileScanner.declaredPathExpression(it) })
+                addGroup(declaration?.let { RouteFileScanner.declaredGroupExpression(it) }, route.path)
+            }
+            entries.calls.filter { isUnderSource(it.path) }.forEach { site ->
+                val file = fileManager.findFileByUrl(site.fileUrl)?.let { psiManager.findFile(it) } ?: return@forEach
+                add(RouteCalls.buildCallAt(file, site.offset)?.let { RouteCalls.pathArgumentOf(it) })
+            }
+            return literals.values.toList()
+        }
+
+        /**
+         * 收集之后字面量又被改过的跳过
+         */
+        private fun rewrite(rewrite: Rewrite) {
+            val literal = rewrite.literal.element ?: return
+            if (PathResolver.literalPath(literal) != rewrite.oldValue) return
+            ElementManipulators.handleContentChange(literal, rewrite.newValue)
+            if (rewrite.isPath) migrated++
+        }
+
+        private fun isUnderSource(path: String): Boolean = path == source || path.startsWith("$source/")
+
+        private fun migrate(path: String): String = target + path.substring(source.length)
+
+        override fun onSuccess() = notify("Migrated $migrated route paths from $source to $target")
+
+        override fun onCancel() = notify("Route migration cancelled after $migrated paths")
+
+        private fun notify(content: String) {
+            NotificationGroupManager.getInstance().getNotificationGroup(NavigationLineMarker.NOTIFY_SERVICE_NAME)
+                .createNotification(content, NotificationType.INFORMATION)
+                .notify(project)
+        }
+    }
+
+    /**
+     * 一处要改的字面量：路径，或者跟着路径改的 group
+     */
+    private class Rewrite(val literal: SmartPsiElementPointer<PsiElement>, val oldValue: String, val newValue: String, val isPath: Boolean)
+
+    companion object {
+        private const val CHUNK_SIZE = 100
+
+        /**
+         * "/order/*"、"/order/" 都当成 "/order"
+         */
+        fun normalizePrefix(text: String): String = text.trim().removeSuffix("*").trimEnd('/')
+    }
+}
@@ -2,12 +2,16 @@ package com.alibaba.android.arouter.idea.extensions
 
 import com.intellij.ide.util.PsiClassListCellRenderer
 import com.intellij.navigation.NavigationItem
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectRootManager
 import com.intellij.openapi.ui.popup.JBPopupFactory
 import com.intellij.psi.*
 import com.intellij.psi.impl.source.tree.java.PsiAnnotationImpl
 import com.intellij.psi.impl.source.tree.java.PsiAnnotationParamListImpl
 import com.intellij.psi.search.GlobalSearchScope
-import com.intellij.psi.search.searches.AnnotatedMembersSearch
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
 import com.intellij.ui.awt.RelativePoint
 import org.jetbrains.kotlin.idea.inspections.findExistingEditor
 import org.jetbrains.kotlin.psi.KtAnnotationEntry
@@ -24,21 +28,38 @@ object NavigationHelper {
 
     const val ROUTE_ANNOTATION_NAME = "com.alibaba.android.arouter.facade.annotation.Route"
     const val ROUTER_FULL_NAME = "com.alibaba.android.arouter.launcher.ARouter"
-    // I'm 100% sure this point can not made memory leak.
-    private var routeAnnotationWrapper: PsiClass? = null
-    private var routeMethodWrapper: PsiMethod? = null
 
 
     fun findTargetAndNavigate(psiElement: PsiElement, targetPath: String, e: MouseEvent?):Boolean{
-        val fullScope = GlobalSearchScope.allScope(psiElement.project)
-        val routeAnnotationWrapper = AnnotatedMembersSearch.search(getAnnotationWrapper(psiElement, fullScope)
-                ?: return false, fullScope).findAll()
-
-        val targetList = routeAnnotationWrapper.filter {list->
-            list.modifierList?.annotations?.map { it.findAttributeValue("path")?.text?.replace("\"", "") }?.contains(targetPath)
-                    ?: false
+        val project = psiElement.project
+        if (DumbService.isDumb(project)) {//索引没建好，用文本扫描的临时表
+            val provisional = RouteIndex.getInstance(project).provisionalRoutes() ?: return false
+            return navigateToTextSites(project, provisional.targets(targetPath), e)
         }
+        val index = RouteIndex.getInstance(project)
+        if (!index.prepareLibraries()) return false
+        return navigateToClasses(index.findTargets(targetPath), e)
+    }
+
+    /**
+     * 动态拼接的路径：按模式匹配出候选目标，多个时弹出列表选择
+     */
+    fun findPatternTargetsAndNavigate(psiElement: PsiElement, pattern: RoutePattern, e: MouseEvent?): Boolean {
+        val index = RouteIndex.getInstance(psiElement.project)
+        if (!index.prepareLibraries()) return false
+        val targetList = RouteSegmentTrie.getInstance(psiElement.project).match(pattern).mapNotNull { index.resolve(it) }.distinct()
+        return navigateToClasses(targetList, e)
+    }
+
+    /**
+     * navigation(Xxx.class)：查接口到实现的表，跳到 @Route 标注的 IProvider 实现
+     */
+    fun findServiceAndNavigate(psiElement: PsiElement, serviceName: String, e: MouseEvent?): Boolean {
+        if (!RouteIndex.getInstance(psiElement.project).prepareLibraries()) return false
+        return navigateToClasses(RouteServices.findProviders(psiElement.project, serviceName), e)
+    }
 
+    private fun navigateToClasses(targetList: List<PsiClass>, e: MouseEvent?): Boolean {
         when {
             targetList.isEmpty() -> {
                 return false
@@ -62,8 +83,12 @@ object NavigationHelper {
             path = (psiElement.children[2] as PsiAnnotationParamListImpl).attributes[0].detachedValue?.text?.replace("\"", "")?:return false
         }
 
-        val fullScope = GlobalSearchScope.allScope(psiElement.project)
-        val method = getMethodWrapper(psiElement,fullScope) ?: return false
+        if (DumbService.isDumb(psiElement.project)) {
+            val provisional = RouteIndex.getInstance(psiElement.project).provisionalRoutes() ?: return false
+            return navigateToTextSites(psiElement.project, provisional.calls(path), e)
+        }
+
+        val method = getMethodWrapper(psiElement.project) ?: return false
 //        val methodUsageList = MethodReferencesSearch.search(method,fullScope,true).findAll()
 //        val findList = methodUsageList.map { it.element }.filter {
 //            it.parent.text.contains(path)
@@ -74,6 +99,41 @@ object NavigationHelper {
         return true
     }
 
+    /**
+     * Judge whether the caller was ARouter
+     */
+    fun isClassOfARouter(psiClass: PsiClass?): Boolean {
+        psiClass ?: return false
+        if (psiClass.name == NavigationLineMarker.SDK_NAME) {
+            return true
+        }
+        return psiClass.supers.any { it.name == NavigationLineMarker.SDK_NAME }
+    }
+
+    private fun navigateToTextSites(project: Project, sites: List<TextSite>, e: MouseEvent?): Boolean {
+        when {
+            sites.isEmpty() -> {
+                return false
+            }
+            sites.size == 1 -> {
+                sites[0].navigate(project)
+            }
+            else -> {
+                JBPopupFactory.getInstance()
+                        .createPopupChooserBuilder(sites)
+                        .setTitle("Choose target")
+                        .setMovable(false)
+                        .setResizable(false)
+                        .setRequestFocus(true)
+                        .setSelectionMode(ListSelectionModel.SINGLE_SELECTION)
+                        .setItemChosenCallback { it.navigate(project) }
+                        .createPopup()
+                        .show(RelativePoint(e!!))
+            }
+        }
+        return true
+    }
+
     private fun showSelectClassDialog(targetList: List<PsiMember>, e: MouseEvent?){
         val renderer = PsiClassListCellRenderer()
         JBPopupFactory.getInstance()
@@ -127,20 +187,21 @@ object NavigationHelper {
         NavigationItem::class.java.cast(target).navigate(true)
     }
 
-    private fun getAnnotationWrapper(psiElement: PsiElement?, scope: GlobalSearchScope): PsiClass? {
-        if (null == routeAnnotationWrapper) {
-            routeAnnotationWrapper = JavaPsiFacade.getInstance(psiElement!!.project).findClass(ROUTE_ANNOTATION_NAME, scope)
-        }
-
-        return routeAnnotationWrapper
+    /**
+     * 提前找好 ARouter.build，第一次点 @Route 的 gutter 时不用再查类。需要在 read action 里调用。
+     */
+    fun warmUp(project: Project) {
+        getMethodWrapper(project)
     }
 
-    private fun getMethodWrapper(psiElement: PsiElement?, scope: GlobalSearchScope): PsiMethod? {
-        if (null == routeMethodWrapper) {
-            val routerClass = JavaPsiFacade.getInstance(psiElement!!.project).findClass(ROUTER_FULL_NAME, scope) ?: return null
-            routeMethodWrapper = routerClass.findMethodsByName("build",false)[0]
+    /**
+     * ARouter.build，按工程缓存，依赖变化后重新查
+     */
+    private fun getMethodWrapper(project: Project): PsiMethod? {
+        return CachedValuesManager.getManager(project).getCachedValue(project) {
+            val routerClass = JavaPsiFacade.getInstance(project).findClass(ROUTER_FULL_NAME, GlobalSearchScope.allScope(project))
+            val method = routerClass?.findMethodsByName(RouteCalls.BUILD_METHOD, false)?.firstOrNull()
+            CachedValueProvider.Result.create(method, ProjectRootManager.getInstance(project))
         }
-
-        return routeMethodWrapper
     }
 }
\ No newline at end of file
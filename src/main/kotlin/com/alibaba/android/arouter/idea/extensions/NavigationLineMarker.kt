@@ -8,6 +8,8 @@ import com.intellij.notification.Notification
 import com.intellij.notification.NotificationType
 import com.intellij.notification.Notifications
 import com.intellij.openapi.editor.markup.GutterIconRenderer
+import com.intellij.openapi.project.DumbAware
+import com.intellij.openapi.project.DumbService
 import com.intellij.openapi.util.IconLoader
 import com.intellij.psi.*
 import com.intellij.psi.impl.source.tree.java.PsiLiteralExpressionImpl
@@ -25,18 +27,26 @@ import java.util.function.Supplier
  * @version 1.0
  * @since 2018/12/13 12:30 PM
  */
-class NavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<PsiElement> {
+class NavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<PsiElement>, DumbAware {
 
     override fun getLineMarkerInfo(element: PsiElement): LineMarkerInfo<*>? {
         return if (isNavigationCall(element)) {
             LineMarkerInfo(element,element.textRange, navigationOnIcon,null,this,GutterIconRenderer.Alignment.LEFT,
-                Supplier { "ARouter Marker" })
+                Supplier { RouteInterceptors.tooltip(element) })
         } else {
             null
         }
     }
 
     override fun navigate(e: MouseEvent?, psiElement: PsiElement?) {
+        if (psiElement is PsiMethodCallExpression && !DumbService.isDumb(psiElement.project)) {
+            // navigation(XxxService.class)
+            val serviceName = RouteServices.serviceClassOf(psiElement)
+            if (serviceName != null) {
+                if (!NavigationHelper.findServiceAndNavigate(psiElement, serviceName, e)) notifyNotFound()
+                return
+            }
+        }
         if (psiElement is PsiMethodCallExpression) {
             val psiExpressionList = (psiElement as PsiMethodCallExpressionImpl).argumentList
             if (psiExpressionList.expressions.size == 1) {
@@ -44,8 +54,18 @@ class NavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<Psi
                     //(psiExpressionList.expressions[0] as PsiReferenceExpressionImpl).resolve().children
                     //PsiReferenceExpression:testjava
                     //PsiLiteralExpression:"/test/java"
-                val targetPath = resolvePath(psiExpressionList.expressions[0])
-                val found = NavigationHelper.findTargetAndNavigate(psiElement,targetPath,e)
+                val argument = psiExpressionList.expressions[0]
+                val pattern = if (DumbService.isDumb(psiElement.project)) null else RoutePattern.compile(argument)
+                val found = if (pattern != null) {//"/item/" + type 这类动态路径
+                    NavigationHelper.findPatternTargetsAndNavigate(psiElement, pattern, e)
+                } else {
+                    val targetPath = if (DumbService.isDumb(psiElement.project)) {
+                        PathResolver.literalPath(argument) ?: ""
+                    } else {
+                        PathResolver.javaPath(argument) ?: UriPaths.pathOf(argument) ?: resolvePath(argument)
+                    }
+                    NavigationHelper.findTargetAndNavigate(psiElement,targetPath,e)
+                }
                 if (found){
                     return
                 }
@@ -72,10 +92,18 @@ class NavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<Psi
      */
     private fun isNavigationCall(psiElement: PsiElement): Boolean {
         if (psiElement is PsiCallExpression) {
+            if (DumbService.isDumb(psiElement.project)) {
+                // 索引没建好时不能 resolve，只按文本判断 ARouter.getInstance().build(...)
+                val methodExpression = (psiElement as? PsiMethodCallExpression)?.methodExpression ?: return false
+                return methodExpression.referenceName == "build" && methodExpression.qualifierExpression?.text?.contains(SDK_NAME) == true
+            }
+            if (RouteServices.serviceClassOf(psiElement) != null) {
+                return true
+            }
             val method = psiElement.resolveMethod() ?: return false
             val parent = method.parent
             if (method.name == "build" && parent is PsiClass) {
-                if (isClassOfARouter(parent)) {
+                if (NavigationHelper.isClassOfARouter(parent)) {
                     return true
                 }
             }
@@ -83,21 +111,6 @@ class NavigationLineMarker : LineMarkerProvider, GutterIconNavigationHandler<Psi
         return false
     }
 
-    /**
-     * Judge whether the caller was ARouter
-     */
-    private fun isClassOfARouter(psiClass: PsiClass): Boolean {
-        // It was ARouter
-        if (psiClass.name.equals(SDK_NAME)) {
-            return true
-        }
-
-        // It super class was ARouter
-        psiClass.supers.find { it.name == SDK_NAME } ?: return false
-
-        return true
-    }
-
     companion object {
         const val SDK_NAME = "ARouter"
 
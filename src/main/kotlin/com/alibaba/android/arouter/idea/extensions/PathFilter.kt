@@ -1,7 +1,7 @@
 package com.alibaba.android.arouter.idea.extensions
 
+import com.intellij.psi.PsiMethodCallExpression
 import com.intellij.psi.PsiReferenceExpression
-import com.intellij.psi.impl.source.tree.java.PsiMethodCallExpressionImpl
 import com.intellij.usages.Usage
 import com.intellij.usages.UsageInfo2UsageAdapter
 import org.jetbrains.kotlin.psi.KtCallExpression
@@ -9,25 +9,28 @@ import org.jetbrains.kotlin.psi.KtFile
 import java.util.function.Predicate
 
 class PathFilter(val path:String) :Predicate<Usage> {
+    private val normalizedPath = RoutePath.normalize(path)
+
     override fun test(usage: Usage): Boolean {
-        val element = (usage as UsageInfo2UsageAdapter).element ?: return false
+        val element = (usage as? UsageInfo2UsageAdapter)?.element ?: return false
 
         //kotlin
         if (element.containingFile is KtFile) {
-            val target = KtNavigationLineMarker.resolvePath((element.parent as KtCallExpression).valueArguments[0])
-            if (target.contains(path)){
-                return true
-            }
+            val argument = (element.parent as? KtCallExpression)?.valueArguments?.getOrNull(0) ?: return false
+            RoutePattern.compile(argument)?.let { return it.matches(normalizedPath) }//动态路径按段匹配
+            val target = PathResolver.kotlinPath(argument.getArgumentExpression())
+                ?: UriPaths.pathOf(argument.getArgumentExpression()) ?: KtNavigationLineMarker.resolvePath(argument)
+            return RoutePath.normalize(target) == normalizedPath
         }
 
         //java
         if (element is PsiReferenceExpression) {
-            val target = NavigationLineMarker.resolvePath((element.parent as PsiMethodCallExpressionImpl).argumentList.expressions[0])
-            if (target.contains(path)){
-                return true
-            }
+            val argument = (element.parent as? PsiMethodCallExpression)?.argumentList?.expressions?.getOrNull(0) ?: return false
+            RoutePattern.compile(argument)?.let { return it.matches(normalizedPath) }
+            val target = PathResolver.javaPath(argument) ?: UriPaths.pathOf(argument) ?: NavigationLineMarker.resolvePath(argument)
+            return RoutePath.normalize(target) == normalizedPath
         }
-        return element.parent.text.contains(path)
+        return false
     }
 
 }
\ No newline at end of file
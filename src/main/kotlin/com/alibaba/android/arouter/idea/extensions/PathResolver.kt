@@ -0,0 +1,87 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.psi.JavaPsiFacade
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiExpression
+import com.intellij.psi.PsiField
+import com.intellij.psi.PsiLiteralExpression
+import com.intellij.psi.PsiParenthesizedExpression
+import com.intellij.psi.PsiReferenceExpression
+import org.jetbrains.kotlin.idea.references.mainReference
+import org.jetbrains.kotlin.psi.KtDotQualifiedExpression
+import org.jetbrains.kotlin.psi.KtExpression
+import org.jetbrains.kotlin.psi.KtParenthesizedExpression
+import org.jetbrains.kotlin.psi.KtProperty
+import org.jetbrains.kotlin.psi.KtReferenceExpression
+import org.jetbrains.kotlin.psi.KtStringTemplateExpression
+import org.jetbrains.kotlin.psi.KtValueArgument
+
+/**
+ * 把字符串字面量/常量表达式解析成路径，解析不了返回 null。
+ * 和 resolvePath 不同，这里不会抛异常，也不会退回到 toString()。
+ */
+object PathResolver {
+
+    fun javaPath(expression: PsiExpression?): String? {
+        expression ?: return null
+        val value = JavaPsiFacade.getInstance(expression.project).constantEvaluationHelper.computeConstantExpression(expression)
+        return value as? String
+    }
+
+    fun kotlinPath(expression: KtExpression?): String? {
+        return when (expression) {
+            null -> null
+            is KtStringTemplateExpression -> {//普通字符串
+                if (expression.hasInterpolation()) null else expression.entries.joinToString("") { it.text }
+            }
+            is KtParenthesizedExpression -> kotlinPath(expression.expression)
+            is KtDotQualifiedExpression -> kotlinPath(expression.selectorExpression)
+            is KtReferenceExpression -> constantValue(expression.mainReference.resolve())//常量引用
+            else -> null
+        }
+    }
+
+    /**
+     * 只认字面量，不做引用解析，dumb mode 下可以用
+     */
+    fun literalPath(expression: PsiElement?): String? {
+        return when (expression) {
+            is PsiLiteralExpression -> expression.value as? String
+            is KtStringTemplateExpression -> kotlinPath(expression)
+            is KtValueArgument -> literalPath(expression.getArgumentExpression())
+            else -> null
+        }
+    }
+
+    /**
+     * 路径最终写在哪个字面量上：字面量本身，或者常量引用对应的常量初始值。
+     * 拼接、模板插值等改不动的返回 null。
+     */
+    fun sourceLiteral(expression: PsiElement?): PsiElement? {
+        return when (expression) {
+            is PsiLiteralExpression -> if (expression.value is String) expression else null
+            is PsiParenthesizedExpression -> sourceLiteral(expression.expression)
+            is PsiReferenceExpression -> sourceLiteral((expression.resolve()?.navigationElement as? PsiField)?.initializer)
+            is KtStringTemplateExpression -> if (expression.hasInterpolation()) null else expression
+            is KtParenthesizedExpression -> sourceLiteral(expression.expression)
+            is KtDotQualifiedExpression -> sourceLiteral(expression.selectorExpression)
+            is KtReferenceExpression -> when (val declaration = expression.mainReference.resolve()?.navigationElement) {
+                is KtProperty -> sourceLiteral(declaration.initializer)
+                is PsiField -> sourceLiteral(declaration.initializer)
+                else -> null
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * 常量定义处的值，kotlin 的 const val 或者 java 的 static final
+     */
+    fun constantValue(declaration: PsiElement?): String? {
+        return when (declaration) {
+            is KtProperty -> kotlinPath(declaration.initializer)
+            is PsiField -> declaration.computeConstantValue() as? String
+            else -> null
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiExpression
+import com.intellij.psi.PsiExpressionList
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiMethod
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.psi.util.PsiTreeUtil
+import org.jetbrains.kotlin.idea.references.mainReference
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtExpression
+import org.jetbrains.kotlin.psi.KtNameReferenceExpression
+import org.jetbrains.kotlin.psi.KtQualifiedExpression
+import org.jetbrains.kotlin.psi.KtValueArgument
+import org.jetbrains.kotlin.psi.KtValueArgumentList
+
+/**
+ * 判断 ARouter 的 build(path) 调用，java 和 kotlin 各一套
+ */
+object RouteCalls {
+
+    const val BUILD_METHOD = "build"
+
+    fun isARouterBuild(method: PsiMethod?): Boolean {
+        method ?: return false
+        return method.name == BUILD_METHOD && NavigationHelper.isClassOfARouter(method.containingClass)
+    }
+
+    fun isARouterBuild(call: PsiMethodCallExpression): Boolean {
+        if (call.methodExpression.referenceName != BUILD_METHOD) return false
+        return isARouterBuild(call.resolveMethod())
+    }
+
+    fun isARouterBuild(call: KtCallExpression): Boolean {
+        val callee = call.calleeExpression as? KtNameReferenceExpression ?: return false
+        if (callee.getReferencedName() != BUILD_METHOD) return false
+        return isARouterBuild(callee.mainReference.resolve() as? PsiMethod)
+    }
+
+    /**
+     * element 是 ARouter 的 build 调用时返回它的路径，路径算不出来也返回 null
+     */
+    fun pathOf(element: PsiElement): String? {
+        return when (element) {
+            is PsiMethodCallExpression -> {
+                if (!isARouterBuild(element)) return null
+                val argument = pathArgumentOf(element)
+                PathResolver.javaPath(argument as? PsiExpression) ?: UriPaths.pathOf(argument)
+            }
+            is KtCallExpression -> {
+                if (!isARouterBuild(element)) return null
+                val argument = pathArgumentOf(element)
+                PathResolver.kotlinPath(argument as? KtExpression) ?: UriPaths.pathOf(argument)
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * argument 是 build(...) 唯一参数时返回这个调用
+     */
+    fun javaBuildCallOf(argument: PsiElement): PsiMethodCallExpression? {
+        val list = argument.parent as? PsiExpressionList ?: return null
+        if (list.expressionCount != 1) return null
+        val call = list.parent as? PsiMethodCallExpression ?: return null
+        return if (isARouterBuild(call)) call else null
+    }
+
+    /**
+     * argument 是 build(...) 唯一参数的表达式时返回这个调用
+     */
+    fun kotlinBuildCallOf(argument: PsiElement): KtCallExpression? {
+        val valueArgument = argument.parent as? KtValueArgument ?: return null
+        val list = valueArgument.parent as? KtValueArgumentList ?: return null
+        if (list.arguments.size != 1) return null
+        val call = list.parent as? KtCallExpression ?: return null
+        return if (isARouterBuild(call)) call else null
+    }
+
+    /**
+     * offset 处(build 这个名字)所在的 build 调用
+     */
+    fun buildCallAt(file: PsiFile, offset: Int): PsiElement? {
+        return file.findElementAt(offset)?.let { buildCallOf(it) }
+    }
+
+    /**
+     * element 外层最近的调用表达式
+     */
+    fun buildCallOf(element: PsiElement): PsiElement? {
+        return PsiTreeUtil.getParentOfType(element, PsiMethodCallExpression::class.java, KtCallExpression::class.java)
+    }
+
+    /**
+     * 沿调用链往前找 ARouter 的 build 调用，比如 withXxx(...)、navigation() 所在链上的 build，中间可以隔着其它调用
+     */
+    fun chainedBuildCallOf(call: PsiElement): PsiElement? {
+        when (call) {
+            is PsiMethodCallExpression -> {
+                var receiver = call.methodExpression.qualifierExpression
+                while (receiver is PsiMethodCallExpression) {
+                    if (receiver.methodExpression.referenceName == BUILD_METHOD) {
+                        return receiver.takeIf { isARouterBuild(it) }
+                    }
+                    receiver = receiver.methodExpression.qualifierExpression
+                }
+            }
+            is KtCallExpression -> {
+                var qualified = call.parent as? KtQualifiedExpression ?: return null
+                while (true) {
+                    val selector = when (val receiver = qualified.receiverExpression) {
+                        is KtCallExpression -> receiver
+                        is KtQualifiedExpression -> receiver.selectorExpression as? KtCallExpression
+                        else -> null
+                    } ?: return null
+                    if ((selector.calleeExpression as? KtNameReferenceExpression)?.getReferencedName() == BUILD_METHOD) {
+                        return selector.takeIf { isARouterBuild(it) }
+                    }
+                    qualified = qualified.receiverExpression as? KtQualifiedExpression ?: return null
+                }
+            }
+        }
+        return null
+    }
+
+    /**
+     * 调用的唯一参数，也就是路径表达式
+     */
+    fun pathArgumentOf(call: PsiElement): PsiElement? {
+        return when (call) {
+            is PsiMethodCallExpression -> call.argumentList.expressions.singleOrNull()
+            is KtCallExpression -> call.valueArguments.singleOrNull()?.getArgumentExpression()
+            else -> null
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.codeInsight.completion.CompletionContributor
+import com.intellij.codeInsight.completion.CompletionParameters
+import com.intellij.codeInsight.completion.CompletionProvider
+import com.intellij.codeInsight.completion.CompletionResultSet
+import com.intellij.codeInsight.completion.CompletionType
+import com.intellij.codeInsight.completion.PlainPrefixMatcher
+import com.intellij.codeInsight.lookup.LookupElementBuilder
+import com.intellij.patterns.PlatformPatterns
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiLiteralExpression
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.util.ProcessingContext
+import org.jetbrains.kotlin.psi.KtStringTemplateExpression
+
+/**
+ * build("...") 里补全路由路径，java 和 kotlin 共用，数据来自 [RoutePathTrie]。
+ */
+class RouteCompletionContributor : CompletionContributor() {
+
+    init {
+        extend(CompletionType.BASIC, PlatformPatterns.psiElement(), object : CompletionProvider<CompletionParameters>() {
+            override fun addCompletions(parameters: CompletionParameters, context: ProcessingContext, result: CompletionResultSet) {
+                val literal = findPathLiteral(parameters.position) ?: return
+                // 引号之后到光标的内容作为前缀
+                val end = parameters.offset - literal.textRange.startOffset
+                if (end < 1 || end > literal.textLength) return
+                val prefix = literal.text.substring(1, end)
+
+                val matcher = result.withPrefixMatcher(PlainPrefixMatcher(prefix))
+                RoutePathTrie.getInstance(literal.project).collect(prefix, MAX_RESULTS) { path, classNames ->
+                    matcher.addElement(
+                        LookupElementBuilder.create(path)
+                            .withIcon(NavigationLineMarker.navigationOnIcon)
+                            .withTypeText(classNames.joinToString(", "), true)
+                    )
+                }
+            }
+        })
+    }
+
+    private fun findPathLiteral(position: PsiElement): PsiElement? {
+        PsiTreeUtil.getParentOfType(position, PsiLiteralExpression::class.java, false)?.let { literal ->
+            return if (RouteCalls.javaBuildCallOf(literal) != null) literal else null
+        }
+        PsiTreeUtil.getParentOfType(position, KtStringTemplateExpression::class.java, false)?.let { template ->
+            return if (RouteCalls.kotlinBuildCallOf(template) != null) template else null
+        }
+        return null
+    }
+
+    companion object {
+        const val MAX_RESULTS = 200
+    }
+}
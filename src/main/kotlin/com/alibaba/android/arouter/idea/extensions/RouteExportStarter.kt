@@ -0,0 +1,109 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.ide.impl.ProjectUtil
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.ApplicationStarter
+import com.intellij.openapi.application.ex.ApplicationEx
+import com.intellij.openapi.application.ex.ApplicationManagerEx
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.project.ex.ProjectManagerEx
+import java.io.BufferedWriter
+import java.io.File
+import java.io.OutputStreamWriter
+import java.nio.file.Paths
+
+/**
+ * 命令行导出路由表，给发布工具用：
+ *
+ * `idea arouter-export <project dir> [--format=jsonl|csv|dot] [--output=<file>]`
+ *
+ * 无界面打开工程，等索引建好后用 [RouteExporter] 边收集边写，默认 JSON Lines 写到标准输出；
+ * IDE 自己也可能往标准输出打日志，给工具解析时最好用 --output。
+ * 工作放在后台线程，等 smart mode 和 read action 都不能在 EDT 上阻塞；结束时走 IDE 的正常退出，不直接结束进程。
+ */
+class RouteExportStarter : ApplicationStarter {
+
+    @Suppress("OVERRIDE_DEPRECATION")
+    override val commandName: String
+        get() = COMMAND
+
+    override val isHeadless: Boolean
+        get() = true
+
+    override fun main(args: List<String>) {
+        val options = parse(args.drop(1))
+        if (options == null) {
+            System.err.println(USAGE)
+            exit(1)
+            return
+        }
+        ApplicationManager.getApplication().executeOnPooledThread {
+            val exitCode = try {
+                export(options)
+                0
+            } catch (e: Exception) {
+                LOG.warn(e)
+                System.err.println("Route export failed: ${e.message}")
+                1
+            }
+            exit(exitCode)
+        }
+    }
+
+    private fun exit(exitCode: Int) {
+        ApplicationManagerEx.getApplicationEx().exit(ApplicationEx.FORCE_EXIT or ApplicationEx.EXIT_CONFIRMED, exitCode)
+    }
+
+    private fun export(options: Options) {
+        val project = ProjectUtil.openOrImport(Paths.get(options.projectPath), null, false)
+            ?: throw IllegalStateException("Cannot open project ${options.projectPath}")
+        try {
+            DumbService.getInstance(project).waitForSmartMode()
+            val stream = options.output?.let { File(it).outputStream() } ?: System.out
+            val out = BufferedWriter(OutputStreamWriter(stream, Charsets.UTF_8), BUFFER_SIZE)
+            val writer = RouteExportWriter.create(options.format, out)!!
+            try {
+                RouteExporter(project, writer).export(EmptyProgressIndicator())
+            } finally {
+                if (options.output != null) out.close() else out.flush()
+            }
+        } finally {
+            close(project)
+        }
+    }
+
+    private fun close(project: Project) {
+        ApplicationManager.getApplication().invokeAndWait {
+            ProjectManagerEx.getInstanceEx().forceCloseProject(project)
+        }
+    }
+
+    private class Options(val projectPath: String, val format: String, val output: String?)
+
+    companion object {
+        const val COMMAND = "arouter-export"
+        private val LOG = Logger.getInstance(RouteExportStarter::class.java)
+        private const val BUFFER_SIZE = 64 * 1024
+        private val USAGE = "Usage: $COMMAND <project dir> [--format=${RouteExportWriter.FORMATS.joinToString("|")}] [--output=<file>]"
+
+        private fun parse(args: List<String>): Options? {
+            var projectPath: String? = null
+            var format = RouteExportWriter.FORMATS.first()
+            var output: String? = null
+            for (arg in args) {
+                when {
+                    arg.startsWith("--format=") -> format = arg.removePrefix("--format=")
+                    arg.startsWith("--output=") -> output = arg.removePrefix("--output=")
+                    arg.startsWith("--") -> return null
+                    projectPath == null -> projectPath = arg
+                    else -> return null
+                }
+            }
+            if (projectPath == null || format !in RouteExportWriter.FORMATS) return null
+            return Options(projectPath, format, output)
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiManager
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.util.concurrency.AppExecutorUtil
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import java.io.Writer
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
+/**
+ * 把路由表导出成 JSON Lines / CSV / DOT，给发布工具用。
+ *
+ * 按模块并行收集：每个模块一个任务，每 [CHUNK_SIZE] 个文件一个 read action，结果放进有界队列，
+ * 由调用线程逐条写出。队列满了收集任务就等着，所以内存里最多只有几批记录，和调用点总数无关。
+ */
+class RouteExporter(private val project: Project, private val writer: RouteExportWriter) {
+
+    fun export(indicator: ProgressIndicator) {
+        val index = RouteIndex.getInstance(project)
+        val filesByModule = ReadAction.compute<Map<String, List<String>>, RuntimeException> {
+            index.verify()
+            index.indexedFiles().groupBy { moduleOf(it) }
+        }
+
+        writer.begin()
+        writeLibraryRoutes(index, indicator)
+
+        val queue = ArrayBlockingQueue<List<ExportRecord>>(QUEUE_CAPACITY)
+        val executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("ARouter Export", MAX_PARALLELISM)
+        try {
+            val futures: List<Future<*>> = filesByModule.map { (module, urls) ->
+                executor.submit(Runnable {
+                    for (chunk in urls.chunked(CHUNK_SIZE)) {
+                        indicator.checkCanceled()
+                        queue.put(ReadAction.compute<List<ExportRecord>, RuntimeException> { collect(index, module, chunk) })
+                    }
+                })
+            }
+            while (true) {
+                val batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)
+                if (batch != null) {
+                    batch.forEach { it.writeTo(writer) }
+                } else if (futures.all { it.isDone }) {
+                    // 任务都结束后不会再有新的批次，把剩下的写完
+                    generateSequence { queue.poll() }.forEach { rest -> rest.forEach { it.writeTo(writer) } }
+                    break
+                }
+                indicator.checkCanceled()
+            }
+            futures.forEach { it.get() }//把收集时的异常抛出来
+        } finally {
+            executor.shutdownNow()
+        }
+        writer.end()
+    }
+
+    /**
+     * 依赖库里的路由，一次只解析一个 group，写完就丢，不进缓存
+     */
+    private fun writeLibraryRoutes(index: RouteIndex, indicator: ProgressIndicator) {
+        val jars = ReadAction.compute<List<Pair<VirtualFile, JarRoutes>>, RuntimeException> { index.libraryJars() }
+        for ((root, jar) in jars) {
+            for (group in jar.groups) {
+                indicator.checkCanceled()
+                jar.parseRoutes(group, root).forEach { writer.route(it.path, it.className, LIBRARY, root.presentableUrl, -1) }
+            }
+        }
+    }
+
+    private fun collect(index: RouteIndex, module: String, urls: List<String>): List<ExportRecord> {
+        val psiManager = PsiManager.getInstance(project)
+        val fileManager = VirtualFileManager.getInstance()
+        val documentManager = FileDocumentManager.getInstance()
+        val result = ArrayList<ExportRecord>()
+        for (url in urls) {
+            val entries = index.fileEntries(url)
+            if (entries.isEmpty) continue
+            val file = fileManager.findFileByUrl(url)
+            val document = file?.let { documentManager.getDocument(it) }
+            val psiFile = file?.let { psiManager.findFile(it) }
+            val path = file?.path ?: url
+            fun lineOf(offset: Int): Int = document?.takeIf { offset in 0..it.textLength }?.let { it.getLineNumber(offset) + 1 } ?: -1
+
+            entries.targets.forEach { result.add(RouteRecord(it.path, it.className, module, path, lineOf(it.offset))) }
+            entries.calls.forEach { site ->
+                val caller = when (val declaration = PsiTreeUtil.getParentOfType(psiFile?.findElementAt(site.offset), PsiClass::class.java, KtClassOrObject::class.java)) {
+                    is PsiClass -> declaration.qualifiedName
+                    is KtClassOrObject -> declaration.fqName?.asString()
+                    else -> null
+                } ?: file?.name ?: url
+                val targets = index.targets(site.path).map { it.className }.distinct()
+                result.add(CallRecord(site.path, caller, module, path, lineOf(site.offset), targets))
+            }
+        }
+        return result
+    }
+
+    private fun moduleOf(fileUrl: String): String {
+        val file = VirtualFileManager.getInstance().findFileByUrl(fileUrl) ?: return NO_MODULE
+        return ProjectFileIndex.getInstance(project).getModuleForFile(file)?.name ?: NO_MODULE
+    }
+
+    private interface ExportRecord {
+        fun writeTo(writer: RouteExportWriter)
+    }
+
+    private class RouteRecord(val path: String, val className: String, val module: String, val file: String, val line: Int) : ExportRecord {
+        override fun writeTo(writer: RouteExportWriter) = writer.route(path, className, module, file, line)
+    }
+
+    private class CallRecord(
+        val path: String,
+        val caller: String,
+        val module: String,
+        val file: String,
+        val line: Int,
+        val targets: List<String>
+    ) : ExportRecord {
+        override fun writeTo(writer: RouteExportWriter) = writer.call(path, caller, module, file, line, targets)
+    }
+
+    companion object {
+        private const val CHUNK_SIZE = 64
+        private const val QUEUE_CAPACITY = 16
+        private const val MAX_PARALLELISM = 8
+        private const val POLL_MILLIS = 100L
+        private const val LIBRARY = "<library>"
+        private const val NO_MODULE = "<no module>"
+    }
+}
+
+/**
+ * 逐条写出的导出格式，不缓存记录；line 从 1 开始，未知为 -1
+ */
+abstract class RouteExportWriter(protected val out: Writer) {
+
+    open fun begin() {}
+
+    abstract fun route(path: String, className: String, module: String, file: String, line: Int)
+
+    abstract fun call(path: String, caller: String, module: String, file: String, line: Int, targets: List<String>)
+
+    open fun end() {
+        out.flush()
+    }
+
+    companion object {
+        val FORMATS = listOf("jsonl", "csv", "dot")
+
+        fun create(format: String, out: Writer): RouteExportWriter? {
+            return when (format) {
+                "jsonl" -> JsonLinesWriter(out)
+                "csv" -> CsvWriter(out)
+                "dot" -> DotWriter(out)
+                else -> null
+            }
+        }
+    }
+}
+
+/**
+ * 每行一个 JSON 对象，type 为 route 或 call
+ */
+class JsonLinesWriter(out: Writer) : RouteExportWriter(out) {
+
+    override fun route(path: String, className: String, module: String, file: String, line: Int) {
+        out.write("{\"type\":\"route\",\"path\":${quote(path)},\"target\":${quote(className)},\"module\":${quote(module)},\"file\":${quote(file)},\"line\":$line}\n")
+    }
+
+    override fun call(path: String, caller: String, module: String, file: String, line: Int, targets: List<String>) {
+        out.write("{\"type\":\"call\",\"path\":${quote(path)},\"caller\":${quote(caller)},\"module\":${quote(module)},\"file\":${quote(file)},\"line\":$line,")
+        out.write(targets.joinToString(",", "\"targets\":[", "]}\n") { quote(it) })
+    }
+
+    private fun quote(text: String): String {
+        val builder = StringBuilder(text.length + 2).append('"')
+        for (c in text) {
+            when {
+                c == '"' -> builder.append("\\\"")
+                c == '\\' -> builder.append("\\\\")
+                c == '\n' -> builder.append("\\n")
+                c == '\r' -> builder.append("\\r")
+                c == '\t' -> builder.append("\\t")
+                c < ' ' -> builder.append(String.format("\\u%04x", c.code))
+                else -> builder.append(c)
+            }
+        }
+        return builder.append('"').toString()
+    }
+}
+
+/**
+ * kind,path,class,module,file,line,targets；调用的 class 是调用方，targets 用 ; 分隔
+ */
+class CsvWriter(out: Writer) : RouteExportWriter(out) {
+
+    override fun begin() {
+        out.write("kind,path,class,module,file,line,targets\n")
+    }
+
+    override fun route(path: String, className: String, module: String, file: String, line: Int) {
+        row("route", path, className, module, file, line.toString(), "")
+    }
+
+    override fun call(path: String, caller: String, module: String, file: String, line: Int, targets: List<String>) {
+        row("call", path, caller, module, file, line.toString(), targets.joinToString(";"))
+    }
+
+    private fun row(vararg cells: String) {
+        out.write(cells.joinToString(",", postfix = "\n") { escape(it) })
+    }
+
+    private fun escape(cell: String): String {
+        if (cell.none { it == ',' || it == '"' || it == '\n' || it == '\r' }) return cell
+        return "\"" + cell.replace("\"", "\"\"") + "\""
+    }
+}
+
+/**
+ * 调用方类 -> 路由 -> 目标类；重复的边由 Graphviz 合并显示，这里不去重，也就不用记住写过什么
+ */
+class DotWriter(out: Writer) : RouteExportWriter(out) {
+
+    override fun begin() {
+        out.write("digraph routes {\n  rankdir=LR;\n  node [shape=ellipse, fontsize=10];\n")
+    }
+
+    override fun route(path: String, className: String, module: String, file: String, line: Int) {
+        out.write("  ${quote(path)} [shape=box];\n  ${quote(path)} -> ${quote(className)};\n")
+    }
+
+    override fun call(path: String, caller: String, module: String, file: String, line: Int, targets: List<String>) {
+        out.write("  ${quote(caller)} -> ${quote(path)};\n")
+    }
+
+    override fun end() {
+        out.write("}\n")
+        super.end()
+    }
+
+    private fun quote(text: String): String = "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\""
+}
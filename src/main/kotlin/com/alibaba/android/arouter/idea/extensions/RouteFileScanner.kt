@@ -0,0 +1,227 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.psi.JavaRecursiveElementWalkingVisitor
+import com.intellij.psi.PsiAnnotation
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiExpression
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiJavaFile
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.psi.util.PsiTreeUtil
+import org.jetbrains.kotlin.asJava.toLightAnnotation
+import org.jetbrains.kotlin.asJava.toLightClass
+import org.jetbrains.kotlin.psi.KtAnnotationEntry
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import org.jetbrains.kotlin.psi.KtExpression
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.psi.KtNameReferenceExpression
+import org.jetbrains.kotlin.psi.KtTreeVisitorVoid
+
+/**
+ * 扫描单个源码文件里的 @Route 声明(连同 @Autowired 字段和 IProvider 服务 key)、@Interceptor 和 build(path) 调用，结果进 [RouteIndex]。
+ * 路径拼出来的 build 调用记成 [RoutePattern]。
+ */
+object RouteFileScanner {
+
+    const val ROUTE_SHORT_NAME = "Route"
+    const val PATH_ATTRIBUTE = "path"
+    const val GROUP_ATTRIBUTE = "group"
+    const val BUILD_METHOD = RouteCalls.BUILD_METHOD
+
+    fun scan(file: PsiFile): FileRoutes {
+        val routes = ArrayList<RouteDeclaration>()
+        val calls = ArrayList<RouteCallSite>()
+        val extras = ArrayList<RouteExtra>()
+        val interceptors = ArrayList<RouteInterceptor>()
+        val providers = ArrayList<RouteProvider>()
+        val patternCalls = ArrayList<RouteCallSite>()
+        val inheritingClasses = ArrayList<String>()
+        when (file) {
+            is PsiJavaFile -> scanJava(file, routes, calls, extras, interceptors, providers, patternCalls, inheritingClasses)
+            is KtFile -> scanKotlin(file, routes, calls, extras, interceptors, providers, patternCalls, inheritingClasses)
+        }
+        val virtualFile = file.viewProvider.virtualFile
+        return FileRoutes(virtualFile, virtualFile.timeStamp, virtualFile.length, routes, calls, extras, interceptors, providers, patternCalls, inheritingClasses)
+    }
+
+    private fun scanJava(
+        file: PsiJavaFile,
+        routes: MutableList<RouteDeclaration>,
+        calls: MutableList<RouteCallSite>,
+        extras: MutableList<RouteExtra>,
+        interceptors: MutableList<RouteInterceptor>,
+        providers: MutableList<RouteProvider>,
+        patternCalls: MutableList<RouteCallSite>,
+        inheritingClasses: MutableList<String>
+    ) {
+        file.accept(object : JavaRecursiveElementWalkingVisitor() {
+            override fun visitAnnotation(annotation: PsiAnnotation) {
+                super.visitAnnotation(annotation)
+                RouteInterceptors.javaInterceptor(annotation)?.let { interceptors.add(it) }
+                if (annotation.nameReferenceElement?.referenceName != ROUTE_SHORT_NAME) return
+                if (annotation.qualifiedName != NavigationHelper.ROUTE_ANNOTATION_NAME) return
+                val psiClass = PsiTreeUtil.getParentOfType(annotation, PsiClass::class.java) ?: return
+                val className = psiClass.qualifiedName ?: return
+                val path = PathResolver.javaPath(annotation.findDeclaredAttributeValue(PATH_ATTRIBUTE) as? PsiExpression)
+                    ?: return
+                routes.add(RouteDeclaration(RoutePath.normalize(path), className, psiClass.textOffset))
+                extras.addAll(AutowiredExtras.javaExtras(psiClass, className))
+                if (AutowiredExtras.hasSourceSuperclass(psiClass)) inheritingClasses.add(className)
+                RouteServices.serviceKeys(psiClass, className).mapTo(providers) { RouteProvider(it, className, psiClass.textOffset) }
+            }
+
+            override fun visitMethodCallExpression(expression: PsiMethodCallExpression) {
+                super.visitMethodCallExpression(expression)
+                val nameElement = expression.methodExpression.referenceNameElement ?: return
+                if (!RouteCalls.isARouterBuild(expression)) return
+                val argument = expression.argumentList.expressions.singleOrNull()
+                val path = PathResolver.javaPath(argument) ?: UriPaths.pathOf(argument)
+                if (path != null) {
+                    calls.add(RouteCallSite(RoutePath.normalize(path), nameElement.textOffset))
+                } else {
+                    RoutePattern.compile(argument)?.let { patternCalls.add(RouteCallSite(it.source, nameElement.textOffset)) }
+                }
+            }
+        })
+    }
+
+    private fun scanKotlin(
+        file: KtFile,
+        routes: MutableList<RouteDeclaration>,
+        calls: MutableList<RouteCallSite>,
+        extras: MutableList<RouteExtra>,
+        interceptors: MutableList<RouteInterceptor>,
+        providers: MutableList<RouteProvider>,
+        patternCalls: MutableList<RouteCallSite>,
+        inheritingClasses: MutableList<String>
+    ) {
+        file.accept(object : KtTreeVisitorVoid() {
+            override fun visitAnnotationEntry(annotationEntry: KtAnnotationEntry) {
+                super.visitAnnotationEntry(annotationEntry)
+                RouteInterceptors.kotlinInterceptor(annotationEntry)?.let { interceptors.add(it) }
+                if (annotationEntry.shortName?.asString() != ROUTE_SHORT_NAME) return
+                if (annotationEntry.toLightAnnotation()?.qualifiedName != NavigationHelper.ROUTE_ANNOTATION_NAME) return
+                val ktClass = PsiTreeUtil.getParentOfType(annotationEntry, KtClassOrObject::class.java) ?: return
+                val className = ktClass.fqName?.asString() ?: return
+                val path = PathResolver.kotlinPath(kotlinPathArgument(annotationEntry)) ?: return
+                routes.add(RouteDeclaration(RoutePath.normalize(path), className, ktClass.textOffset))
+                extras.addAll(AutowiredExtras.kotlinExtras(ktClass, className))
+                val lightClass = ktClass.toLightClass()
+                if (lightClass != null && AutowiredExtras.hasSourceSuperclass(lightClass)) inheritingClasses.add(className)
+                RouteServices.serviceKeys(ktClass, className).mapTo(providers) { RouteProvider(it, className, ktClass.textOffset) }
+            }
+
+            override fun visitCallExpression(expression: KtCallExpression) {
+                super.visitCallExpression(expression)
+                val callee = expression.calleeExpression as? KtNameReferenceExpression ?: return
+                if (!RouteCalls.isARouterBuild(expression)) return
+                val argument = expression.valueArguments.singleOrNull()?.getArgumentExpression()
+                val path = PathResolver.kotlinPath(argument) ?: UriPaths.pathOf(argument)
+                if (path != null) {
+                    calls.add(RouteCallSite(RoutePath.normalize(path), callee.textOffset))
+                } else {
+                    RoutePattern.compile(argument)?.let { patternCalls.add(RouteCallSite(it.source, callee.textOffset)) }
+                }
+            }
+        })
+    }
+
+    /**
+     * 类上 @Route 声明的路径，java 类、kotlin 类和 light class 都可以
+     */
+    fun declaredPath(element: PsiElement): String? {
+        return when (val expression = declaredPathExpression(element)) {
+            is PsiExpression -> PathResolver.javaPath(expression)
+            is KtExpression -> PathResolver.kotlinPath(expression)
+            else -> null
+        }
+    }
+
+    /**
+     * 类上 @Route 的 path 参数表达式
+     */
+    fun declaredPathExpression(element: PsiElement): PsiElement? {
+        return when (val declaration = element.navigationElement) {
+            is PsiClass -> {
+                val annotation = declaration.getAnnotation(NavigationHelper.ROUTE_ANNOTATION_NAME) ?: return null
+                annotation.findDeclaredAttributeValue(PATH_ATTRIBUTE)
+            }
+            is KtClassOrObject -> {
+                val annotationEntry = declaration.annotationEntries.firstOrNull {
+                    it.shortName?.asString() == ROUTE_SHORT_NAME && it.toLightAnnotation()?.qualifiedName == NavigationHelper.ROUTE_ANNOTATION_NAME
+                } ?: return null
+                kotlinPathArgument(annotationEntry)
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * 类上 @Route 显式写了 group 时的参数表达式，kotlin 里也可以按位置写在第二个
+     */
+    fun declaredGroupExpression(element: PsiElement): PsiElement? {
+        return when (val declaration = element.navigationElement) {
+            is PsiClass -> declaration.getAnnotation(NavigationHelper.ROUTE_ANNOTATION_NAME)?.findDeclaredAttributeValue(GROUP_ATTRIBUTE)
+            is KtClassOrObject -> {
+                val annotationEntry = declaration.annotationEntries.firstOrNull {
+                    it.shortName?.asString() == ROUTE_SHORT_NAME && it.toLightAnnotation()?.qualifiedName == NavigationHelper.ROUTE_ANNOTATION_NAME
+                } ?: return null
+                val arguments = annotationEntry.valueArguments
+                val argument = arguments.firstOrNull { it.getArgumentName()?.asName?.asString() == GROUP_ATTRIBUTE }
+                    ?: arguments.filter { it.getArgumentName() == null }.getOrNull(1)
+                argument?.getArgumentExpression()
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * annotation 是 @Route 时返回它标注的类
+     */
+    fun routeClassOf(annotation: PsiElement): PsiElement? {
+        return when (annotation) {
+            is PsiAnnotation -> {
+                if (annotation.nameReferenceElement?.referenceName != ROUTE_SHORT_NAME) return null
+                if (annotation.qualifiedName != NavigationHelper.ROUTE_ANNOTATION_NAME) return null
+                PsiTreeUtil.getParentOfType(annotation, PsiClass::class.java)
+            }
+            is KtAnnotationEntry -> {
+                if (annotation.shortName?.asString() != ROUTE_SHORT_NAME) return null
+                if (annotation.toLightAnnotation()?.qualifiedName != NavigationHelper.ROUTE_ANNOTATION_NAME) return null
+                PsiTreeUtil.getParentOfType(annotation, KtClassOrObject::class.java)
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * kotlin 注解参数是不是 @Route 的 path
+     */
+    fun isKotlinPathArgument(expression: KtExpression): Boolean {
+        val annotationEntry = PsiTreeUtil.getParentOfType(expression, KtAnnotationEntry::class.java) ?: return false
+        if (annotationEntry.shortName?.asString() != ROUTE_SHORT_NAME) return false
+        return kotlinPathArgument(annotationEntry) == expression
+    }
+
+    /**
+     * @Route(path = "...") 或 @Route("...")
+     */
+    fun kotlinPathArgument(annotationEntry: KtAnnotationEntry): KtExpression? {
+        val arguments = annotationEntry.valueArguments
+        val argument = arguments.firstOrNull { it.getArgumentName()?.asName?.asString() == PATH_ATTRIBUTE }
+            ?: arguments.firstOrNull { it.getArgumentName() == null }
+        return argument?.getArgumentExpression()
+    }
+}
+
+/**
+ * 源码里的一条路由声明，offset 是目标类名字的位置
+ */
+data class RouteDeclaration(val path: String, val className: String, val offset: Int)
+
+/**
+ * 源码里的一处 build(path) 调用，offset 是 build 这个名字的位置
+ */
+data class RouteCallSite(val path: String, val offset: Int)
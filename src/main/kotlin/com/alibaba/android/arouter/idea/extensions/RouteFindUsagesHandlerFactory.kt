@@ -0,0 +1,85 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.find.findUsages.AbstractFindUsagesDialog
+import com.intellij.find.findUsages.FindUsagesHandler
+import com.intellij.find.findUsages.FindUsagesHandlerFactory
+import com.intellij.find.findUsages.FindUsagesOptions
+import com.intellij.openapi.actionSystem.DataContext
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiManager
+import com.intellij.usageView.UsageInfo
+import com.intellij.util.Processor
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 对 @Route 类做 Alt+F7 时，把 build("/path") 调用也列进 Usages。
+ *
+ * 调用处直接从 [RouteIndex] 的 path → 调用表里按规范路径精确查，和 [PathFilter] 一致；
+ * 类本身的引用还交给 java/kotlin 原来的 handler 找，和它们的结果按调用去重。
+ */
+class RouteFindUsagesHandlerFactory : FindUsagesHandlerFactory() {
+
+    override fun canFindUsages(element: PsiElement): Boolean {
+        if (element !is PsiClass && element !is KtClassOrObject) return false
+        return RouteFileScanner.declaredPath(element) != null
+    }
+
+    override fun createFindUsagesHandler(element: PsiElement, forHighlightUsages: Boolean): FindUsagesHandler? {
+        if (forHighlightUsages) return null
+        val path = RouteFileScanner.declaredPath(element) ?: return null
+        val delegate = EP_NAME.getExtensions(element.project)
+            .firstOrNull { it !is RouteFindUsagesHandlerFactory && it.canFindUsages(element) }
+            ?.createFindUsagesHandler(element, false)
+            ?.takeIf { it != FindUsagesHandler.NULL_HANDLER }
+        return RouteFindUsagesHandler(element, path, delegate)
+    }
+}
+
+private class RouteFindUsagesHandler(
+    element: PsiElement,
+    private val path: String,
+    private val delegate: FindUsagesHandler?
+) : FindUsagesHandler(element) {
+
+    override fun getPrimaryElements(): Array<PsiElement> = delegate?.primaryElements ?: super.getPrimaryElements()
+
+    override fun getSecondaryElements(): Array<PsiElement> = delegate?.secondaryElements ?: super.getSecondaryElements()
+
+    override fun getFindUsagesOptions(dataContext: DataContext?): FindUsagesOptions {
+        return delegate?.getFindUsagesOptions(dataContext) ?: super.getFindUsagesOptions(dataContext)
+    }
+
+    override fun getFindUsagesDialog(isSingleFile: Boolean, toShowInFindWindow: Boolean, mustOpenInNewTab: Boolean): AbstractFindUsagesDialog {
+        return delegate?.getFindUsagesDialog(isSingleFile, toShowInFindWindow, mustOpenInNewTab)
+            ?: super.getFindUsagesDialog(isSingleFile, toShowInFindWindow, mustOpenInNewTab)
+    }
+
+    override fun processElementUsages(element: PsiElement, processor: Processor<in UsageInfo>, options: FindUsagesOptions): Boolean {
+        // 已经报过的 build 调用，路径字面量上的引用会被原来的 handler 找到
+        val reported = ConcurrentHashMap.newKeySet<PsiElement>()
+        val recording = Processor<UsageInfo> { usage ->
+            usage.element?.let { RouteCalls.buildCallOf(it) }?.let { reported.add(it) }
+            processor.process(usage)
+        }
+        val processed = delegate?.processElementUsages(element, recording, options)
+            ?: super.processElementUsages(element, recording, options)
+        if (!processed || !options.isUsages || element != psiElement) return processed
+
+        val usages = ReadAction.compute<List<UsageInfo>, RuntimeException> {
+            val psiManager = PsiManager.getInstance(project)
+            val fileManager = VirtualFileManager.getInstance()
+            RouteIndex.getInstance(project).callSites(path)
+                .mapNotNull { site ->
+                    val file = fileManager.findFileByUrl(site.fileUrl) ?: return@mapNotNull null
+                    if (!options.searchScope.contains(file)) return@mapNotNull null
+                    val call = psiManager.findFile(file)?.let { RouteCalls.buildCallAt(it, site.offset) } ?: return@mapNotNull null
+                    if (call in reported) null else UsageInfo(RouteCalls.pathArgumentOf(call) ?: call)
+                }
+        }
+        return usages.all { processor.process(it) }
+    }
+}
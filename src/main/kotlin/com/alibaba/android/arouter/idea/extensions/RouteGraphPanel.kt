@@ -0,0 +1,131 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.icons.AllIcons
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.actionSystem.ActionManager
+import com.intellij.openapi.actionSystem.ActionUpdateThread
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.actionSystem.DefaultActionGroup
+import com.intellij.openapi.fileChooser.FileChooserFactory
+import com.intellij.openapi.fileChooser.FileSaverDescriptor
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.Task
+import com.intellij.openapi.project.DumbAwareAction
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.ui.SimpleToolWindowPanel
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.ui.ScrollPaneFactory
+import com.intellij.ui.components.JBTabbedPane
+import com.intellij.ui.table.TableView
+import com.intellij.util.ui.ColumnInfo
+import com.intellij.util.ui.ListTableModel
+import javax.swing.SortOrder
+
+/**
+ * ARouter 工具窗口的 "Navigation Graph" 页：模块之间、类到路由的调用关系，可以导出 DOT。
+ */
+class RouteGraphPanel(private val project: Project) : SimpleToolWindowPanel(true, true), Disposable {
+
+    private val moduleModel = ListTableModel<RouteNavigationGraph.GraphEdge>(
+        arrayOf<ColumnInfo<*, *>>(
+            column("From module") { it.from },
+            column("To module") { it.to },
+            weightColumn("Calls")
+        ),
+        ArrayList(), 2, SortOrder.DESCENDING
+    )
+    private val classModel = ListTableModel<RouteNavigationGraph.GraphEdge>(
+        arrayOf<ColumnInfo<*, *>>(
+            column("Caller") { it.from },
+            column("Path") { it.to },
+            column("Target") { it.targets ?: "" },
+            weightColumn("Calls")
+        ),
+        ArrayList(), 3, SortOrder.DESCENDING
+    )
+
+    @Volatile
+    private var graph: RouteNavigationGraph? = null
+    @Volatile
+    private var disposed = false
+
+    init {
+        val tabs = JBTabbedPane()
+        tabs.addTab("Modules", ScrollPaneFactory.createScrollPane(TableView(moduleModel)))
+        tabs.addTab("Classes", ScrollPaneFactory.createScrollPane(TableView(classModel)))
+
+        val actions = DefaultActionGroup(
+            object : DumbAwareAction("Build Graph", "Scan route calls of every module", AllIcons.Actions.Refresh) {
+                override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.EDT
+
+                override fun actionPerformed(e: AnActionEvent) = rebuild()
+            },
+            object : DumbAwareAction("Export to DOT", "Save the graph for Graphviz", AllIcons.ToolbarDecorator.Export) {
+                override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.EDT
+
+                override fun update(e: AnActionEvent) {
+                    e.presentation.isEnabled = graph != null
+                }
+
+                override fun actionPerformed(e: AnActionEvent) = exportDot()
+            }
+        )
+        val toolbar = ActionManager.getInstance().createActionToolbar(TITLE, actions, true)
+        toolbar.targetComponent = this
+        setToolbar(toolbar.component)
+        setContent(tabs)
+    }
+
+    fun rebuild() {
+        object : Task.Backgroundable(project, "Building route navigation graph", true) {
+            private var result: RouteNavigationGraph? = null
+
+            override fun run(indicator: ProgressIndicator) {
+                result = RouteNavigationGraph.build(project, indicator)
+            }
+
+            override fun onSuccess() {
+                val built = result ?: return
+                if (disposed) return
+                graph = built
+                moduleModel.items = built.moduleEdges()
+                classModel.items = built.classEdges()
+            }
+        }.queue()
+    }
+
+    private fun exportDot() {
+        val current = graph ?: return
+        val descriptor = FileSaverDescriptor("Export Route Graph", "Save the navigation graph as a Graphviz DOT file", "dot")
+        val target = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project)
+            .save(null as VirtualFile?, "routes.dot") ?: return
+        target.file.bufferedWriter().use { current.writeDot(it) }
+        target.getVirtualFile(true)
+    }
+
+    override fun dispose() {
+        disposed = true
+    }
+
+    companion object {
+        const val TITLE = "Navigation Graph"
+
+        private fun column(name: String, value: (RouteNavigationGraph.GraphEdge) -> String): ColumnInfo<RouteNavigationGraph.GraphEdge, String> {
+            return object : ColumnInfo<RouteNavigationGraph.GraphEdge, String>(name) {
+                override fun valueOf(item: RouteNavigationGraph.GraphEdge): String = value(item)
+
+                override fun getComparator(): Comparator<RouteNavigationGraph.GraphEdge> = compareBy(value)
+            }
+        }
+
+        private fun weightColumn(name: String): ColumnInfo<RouteNavigationGraph.GraphEdge, Int> {
+            return object : ColumnInfo<RouteNavigationGraph.GraphEdge, Int>(name) {
+                override fun valueOf(item: RouteNavigationGraph.GraphEdge): Int = item.weight
+
+                override fun getColumnClass(): Class<*> = Int::class.javaObjectType
+
+                override fun getComparator(): Comparator<RouteNavigationGraph.GraphEdge> = compareBy { it.weight }
+            }
+        }
+    }
+}
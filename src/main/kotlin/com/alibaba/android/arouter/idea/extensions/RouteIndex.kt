@@ -0,0 +1,549 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.ProjectTopics
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ModuleRootEvent
+import com.intellij.openapi.roots.ModuleRootListener
+import com.intellij.openapi.roots.OrderEnumerator
+import com.intellij.openapi.util.ModificationTracker
+import com.intellij.openapi.util.ThrowableComputable
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.JavaPsiFacade
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiManager
+import com.intellij.psi.PsiTreeChangeAdapter
+import com.intellij.psi.PsiTreeChangeEvent
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.psi.search.searches.AnnotatedMembersSearch
+import com.intellij.psi.search.searches.MethodReferencesSearch
+import com.intellij.util.concurrency.AppExecutorUtil
+import com.intellij.util.messages.Topic
+import java.util.PriorityQueue
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 工程级的路由表和调用点表。
+ *
+ * 源码里的路由/调用放在按 group 分片的 [RouteTable] 里，文件改动后只重新扫描这个文件，关闭工程时落盘（[RouteTableStorage]）；
+ * 依赖库的路由只记 classes 根目录，内容在应用级的 [LibraryRouteCache] 里，多个工程共用。
+ *
+ * 查询只读当前的表，不在调用线程上扫描；建表和重新扫描改过的文件放在后台 smart mode 的 read action 里([verify])，
+ * 做完后增加 modificationCount。
+ */
+class RouteIndex(private val project: Project) : Disposable, ModificationTracker {
+
+    @Volatile
+    private var table = RouteTable()
+    // 路由表内容(不算 offset)变化时加一，派生的结构(补全用的前缀树等)据此失效
+    private val modCount = AtomicLong()
+    private val dirtyFiles = ConcurrentHashMap.newKeySet<VirtualFile>()
+    // 重建时的候选文件、从磁盘加载后时间戳对不上的文件，只有后台的 [verify] 处理，查询不等它们
+    private val pendingFiles = ConcurrentHashMap.newKeySet<VirtualFile>()
+    private val updateScheduled = AtomicBoolean()
+
+    @Volatile
+    private var initialized = false
+    // 重建已经开始，候选文件在 pendingFiles 里
+    @Volatile
+    private var rebuilding = false
+    // 从磁盘加载的表还没和工程对过
+    @Volatile
+    private var needVerify = false
+    // 依赖库里带路由的 classes 根目录，后台更新时解析(要算 jar 的 hash)，依赖变化后清空
+    @Volatile
+    private var libraries: LibraryRoutes? = null
+    // allTargets 的结果和取数据前的 modCount，几棵前缀树和搜索共用一份
+    @Volatile
+    private var targetsSnapshot: Pair<Long, List<RouteTarget>>? = null
+    // dumb mode 下文本扫描出来的临时表，退出 dumb mode 就丢掉
+    @Volatile
+    private var provisional: ProvisionalRoutes? = null
+
+    init {
+        PsiManager.getInstance(project).addPsiTreeChangeListener(object : PsiTreeChangeAdapter() {
+            override fun childAdded(event: PsiTreeChangeEvent) = markDirty(event)
+            override fun childRemoved(event: PsiTreeChangeEvent) = markDirty(event)
+            override fun childReplaced(event: PsiTreeChangeEvent) = markDirty(event)
+            override fun childMoved(event: PsiTreeChangeEvent) = markDirty(event)
+            override fun childrenChanged(event: PsiTreeChangeEvent) = markDirty(event)
+        }, this)
+        project.messageBus.connect(this).subscribe(ProjectTopics.PROJECT_ROOTS, object : ModuleRootListener {
+            override fun rootsChanged(event: ModuleRootEvent) {
+                libraries = null
+                modCount.incrementAndGet()
+                scheduleUpdate()
+            }
+        })
+        project.messageBus.connect(this).subscribe(DumbService.DUMB_MODE, object : DumbService.DumbModeListener {
+            override fun exitDumbMode() {
+                provisional = null
+            }
+        })
+    }
+
+    /**
+     * dumb mode 下的临时路由表，第一次用到时扫描；在 EDT 上调用会弹出可取消的进度框
+     */
+    fun provisionalRoutes(): ProvisionalRoutes? {
+        provisional?.let { return it }
+        val routes = if (ApplicationManager.getApplication().isDispatchThread) {
+            try {
+                ProgressManager.getInstance().runProcessWithProgressSynchronously(
+                    ThrowableComputable<ProvisionalRoutes, RuntimeException> { RouteTextScanner.scanProject(project) },
+                    "Scanning ARouter routes", true, project
+                )
+            } catch (e: ProcessCanceledException) {
+                return null
+            }
+        } else {
+            RouteTextScanner.scanProject(project)
+        }
+        if (DumbService.isDumb(project)) {
+            provisional = routes
+        }
+        return routes
+    }
+
+    /**
+     * 后台提前准备 dumb mode 的临时表，工程打开时正在建索引的情况
+     */
+    fun scheduleProvisionalScan() {
+        ApplicationManager.getApplication().executeOnPooledThread {
+            if (provisional == null && DumbService.isDumb(project) && !project.isDisposed) {
+                val routes = RouteTextScanner.scanProject(project)
+                if (DumbService.isDumb(project)) {
+                    provisional = routes
+                }
+            }
+        }
+    }
+
+    /**
+     * path 对应的目标类，源码和依赖库都算。需要在 read action 里调用。
+     */
+    fun findTargets(path: String): List<PsiClass> {
+        return targets(path).mapNotNull { resolve(it) }.distinct()
+    }
+
+    fun targets(path: String): List<RouteTarget> {
+        requestUpdate()
+        val key = RoutePath.normalize(path)
+        return table.targets(key) + libraryTargets(key)
+    }
+
+    fun callSites(path: String): List<RouteSite> {
+        requestUpdate()
+        return table.callSites(RoutePath.normalize(path))
+    }
+
+    /**
+     * 源码路由类的 @Autowired 字段，依赖库里的类没有记录
+     */
+    fun autowiredFields(className: String): List<AutowiredField> {
+        requestUpdate()
+        return table.autowiredFields(className)
+    }
+
+    /**
+     * 源码路由类继承了工程源码里的类，父类可能还有没记录的 @Autowired 字段
+     */
+    fun inheritsSourceClass(className: String): Boolean {
+        requestUpdate()
+        return table.inheritsSourceClass(className)
+    }
+
+    /**
+     * 源码和依赖库的拦截器，按执行顺序排列；路由表和每个依赖各自有序，这里只做归并
+     */
+    fun interceptors(): List<InterceptorTarget> {
+        requestUpdate()
+        val sources = arrayListOf(table.interceptors())
+        libraryJars().forEach { (_, jar) ->
+            sources.add(jar.interceptors.map { InterceptorTarget(it.className, it.priority, "", null, -1) })
+        }
+        return mergeSorted(sources, RouteInterceptors.ORDER)
+    }
+
+    /**
+     * 路由表里记录了内容的源码文件 url
+     */
+    fun indexedFiles(): List<String> {
+        requestUpdate()
+        return table.fileStamps().map { it.url }
+    }
+
+    /**
+     * 一个源码文件在路由表里的路由和调用
+     */
+    fun fileEntries(url: String): FileEntries {
+        requestUpdate()
+        return table.fileEntries(url)
+    }
+
+    /**
+     * 源码和依赖库里全部 IProvider 服务实现
+     */
+    fun allProviders(): List<ProviderTarget> {
+        requestUpdate()
+        val result = ArrayList(table.allProviders())
+        libraryJars().forEach { (_, jar) ->
+            jar.providers.mapTo(result) { ProviderTarget(it.key, it.className, null, -1) }
+        }
+        return result
+    }
+
+    /**
+     * 全部路由；依赖库的部分按这组依赖解析一次([LibraryRoutes.allRoutes])，不占按 group 加载的缓存。
+     * 结果按 modificationCount 缓存，路由表没变时几个调用方拿到的是同一份列表
+     */
+    fun allTargets(): List<RouteTarget> {
+        requestUpdate()
+        // 先取计数再读数据，读的过程中表变了也只会让下次重新算
+        val count = modCount.get()
+        targetsSnapshot?.let { (snapshotCount, targets) -> if (snapshotCount == count) return targets }
+        val result = ArrayList(table.allTargets())
+        libraries().allRoutes.mapTo(result) { RouteTarget(it.path, it.className, null, -1) }
+        targetsSnapshot = count to result
+        return result
+    }
+
+    fun allCallSites(): List<RouteSite> {
+        requestUpdate()
+        return table.allCallSites()
+    }
+
+    /**
+     * 源码里的全部路由和调用，连同路由表的版本；[RouteIndexListener.routesChanged] 的 version 不大于它时，那次变化已经包含在里面
+     */
+    fun sourceEntries(): Pair<Long, FileEntries> {
+        requestUpdate()
+        return table.allEntries()
+    }
+
+    /**
+     * 动态路径的 build 调用，path 是 [RoutePattern.source]
+     */
+    fun allPatternCalls(): List<RouteSite> {
+        requestUpdate()
+        return table.allPatternCalls()
+    }
+
+    fun resolve(target: RouteTarget): PsiClass? = resolve(target.className, target.fileUrl)
+
+    /**
+     * fileUrl 为空时是依赖库里的类
+     */
+    fun resolve(className: String, fileUrl: String?): PsiClass? {
+        val scope = if (fileUrl == null) {
+            GlobalSearchScope.allScope(project)
+        } else {
+            val file = VirtualFileManager.getInstance().findFileByUrl(fileUrl) ?: return null
+            GlobalSearchScope.fileScope(project, file)
+        }
+        return JavaPsiFacade.getInstance(project).findClass(className, scope)
+    }
+
+    private fun libraryTargets(path: String): List<RouteTarget> {
+        return libraries().routes(path).map { RouteTarget(it.path, it.className, null, -1) }
+    }
+
+    /**
+     * 依赖库里带路由的 classes 根目录，还没解析完时为空
+     */
+    fun libraryJars(): List<Pair<VirtualFile, JarRoutes>> = libraries().jars
+
+    private fun libraries(): LibraryRoutes = libraries ?: LibraryRoutes.EMPTY.also { scheduleUpdate() }
+
+    /**
+     * 路由表已经建好(或者从磁盘加载)并且依赖库已经解析，否则查询结果不完整
+     */
+    val isReady: Boolean
+        get() = initialized && libraries != null
+
+    /**
+     * 检查开始前调用：批量检查直接把表更新到最新；编辑器里表或依赖库还没准备好时安排后台更新并返回 false，好了以后会重新高亮
+     */
+    fun prepareForInspection(isOnTheFly: Boolean): Boolean {
+        if (!isOnTheFly) verify()
+        if (isReady) return true
+        scheduleUpdate()
+        return false
+    }
+
+    /**
+     * 跳转这类用户主动的操作等依赖库解析完再查，不然依赖里的路由找不到；在 EDT 上调用会弹出可取消的进度框。
+     * 不拿路由表的锁，不会等后台更新；返回 false 表示被取消
+     */
+    fun prepareLibraries(): Boolean {
+        if (libraries != null) return true
+        val computed = if (ApplicationManager.getApplication().isDispatchThread) {
+            try {
+                ProgressManager.getInstance().runProcessWithProgressSynchronously(
+                    ThrowableComputable<LibraryRoutes, RuntimeException> { ReadAction.compute<LibraryRoutes, RuntimeException> { indexLibraries() } },
+                    "Indexing ARouter libraries", true, project
+                )
+            } catch (e: ProcessCanceledException) {
+                return false
+            }
+        } else {
+            indexLibraries()
+        }
+        if (libraries == null) {
+            libraries = computed
+            modCount.incrementAndGet()
+            ApplicationManager.getApplication().invokeLater({ DaemonCodeAnalyzer.getInstance(project).restart() }, project.disposed)
+        }
+        return true
+    }
+
+    private fun indexLibraries(): LibraryRoutes {
+        val roots = OrderEnumerator.orderEntries(project).librariesOnly().classes().roots
+        return LibraryRoutes(roots.mapNotNull { root -> LibraryRouteIndexer.indexRoot(root)?.let { root to it } })
+    }
+
+    /**
+     * 安排后台更新路由表，已经安排了的不重复安排
+     */
+    fun scheduleUpdate() {
+        if (project.isDisposed || !updateScheduled.compareAndSet(false, true)) return
+        ReadAction.nonBlocking<Unit> { verify() }
+            .inSmartMode(project)
+            .expireWith(this)
+            .submit(UPDATE_EXECUTOR)
+    }
+
+    private fun requestUpdate() {
+        if (!initialized) scheduleUpdate()
+    }
+
+    /**
+     * 读取落盘的路由表，加载后马上可以查；时间戳对不上的文件等后台 [verify] 重新扫描，在那之前按旧内容回答
+     */
+    fun loadPersisted() {
+        if (initialized) return
+        val loaded = RouteTableStorage.load(project) ?: return
+        val fileManager = VirtualFileManager.getInstance()
+        val changed = ArrayList<VirtualFile>()
+        for (stamp in loaded.fileStamps()) {
+            val file = fileManager.findFileByUrl(stamp.url)
+            if (file == null) {
+                loaded.removeFile(stamp.url)
+            } else if (file.timeStamp != stamp.timeStamp || file.length != stamp.length) {
+                changed.add(file)
+            }
+        }
+        synchronized(this) {
+            if (initialized || rebuilding) return
+            table = loaded
+            pendingFiles.addAll(changed)
+            needVerify = true
+            initialized = true
+            modCount.incrementAndGet()
+        }
+        project.messageBus.syncPublisher(TOPIC).routesReset()
+    }
+
+    /**
+     * 把路由表更新到最新：依赖变化后重新解析依赖库，第一次用时重建，从磁盘加载后补上工程关闭期间新增的文件，再重新扫描改过的文件。
+     * 需要在 read action 里调用，dumb mode 下只安排后台更新；被取消时没扫完的文件留在队列里，下次接着扫。
+     */
+    fun verify() {
+        updateScheduled.set(false)
+        if (DumbService.isDumb(project)) {
+            scheduleUpdate()
+            return
+        }
+        val before = modCount.get()
+        synchronized(this) {
+            if (libraries == null) {
+                libraries = indexLibraries()
+                modCount.incrementAndGet()
+            }
+            if (!initialized && !rebuilding) {
+                dirtyFiles.clear()
+                table.clear()
+                project.messageBus.syncPublisher(TOPIC).routesReset()
+                pendingFiles.addAll(collectCandidateFiles())
+                rebuilding = true
+            }
+            if (needVerify) {
+                collectCandidateFiles().filterTo(pendingFiles) { !table.containsFile(it.url) }
+                needVerify = false
+            }
+            drain(pendingFiles)
+            if (rebuilding) {
+                rebuilding = false
+                initialized = true
+                modCount.incrementAndGet()
+            }
+            drain(dirtyFiles)
+        }
+        project.messageBus.syncPublisher(TOPIC).updateFinished()
+        if (modCount.get() != before) {
+            // 别的文件里的检查和 gutter 可能依赖这次的变化
+            ApplicationManager.getApplication().invokeLater({ DaemonCodeAnalyzer.getInstance(project).restart() }, project.disposed)
+        }
+    }
+
+    /**
+     * 逐个重新扫描，先出队再扫，被取消时放回去
+     */
+    private fun drain(files: MutableSet<VirtualFile>) {
+        val iterator = files.iterator()
+        while (iterator.hasNext()) {
+            val file = iterator.next()
+            if (!files.remove(file)) continue
+            try {
+                ProgressManager.checkCanceled()
+                rescan(file)
+            } catch (e: ProcessCanceledException) {
+                files.add(file)
+                throw e
+            }
+        }
+    }
+
+    /**
+     * 借助平台的索引找出可能有 @Route、@Interceptor 或 build 调用的文件
+     */
+    private fun collectCandidateFiles(): Set<VirtualFile> {
+        val files = LinkedHashSet<VirtualFile>()
+        val facade = JavaPsiFacade.getInstance(project)
+        val allScope = GlobalSearchScope.allScope(project)
+        val projectScope = GlobalSearchScope.projectScope(project)
+
+        for (annotationName in listOf(NavigationHelper.ROUTE_ANNOTATION_NAME, RouteInterceptors.INTERCEPTOR_ANNOTATION_NAME)) {
+            facade.findClass(annotationName, allScope)?.let { annotation ->
+                AnnotatedMembersSearch.search(annotation, projectScope).findAll().forEach { member ->
+                    member.navigationElement.containingFile?.virtualFile?.let { files.add(it) }
+                }
+            }
+        }
+        facade.findClass(NavigationHelper.ROUTER_FULL_NAME, allScope)?.let { router ->
+            router.findMethodsByName(RouteFileScanner.BUILD_METHOD, false).forEach { method ->
+                MethodReferencesSearch.search(method, projectScope, true).findAll().forEach { reference ->
+                    reference.element.containingFile?.virtualFile?.let { files.add(it) }
+                }
+            }
+        }
+        return files
+    }
+
+    private fun rescan(file: VirtualFile) {
+        val psiFile = if (file.isValid) PsiManager.getInstance(project).findFile(file) else null
+        val entry = psiFile?.let { RouteFileScanner.scan(it) }
+        val removed = table.fileEntries(file.url)
+        val changed = if (entry == null) table.removeFile(file.url) else table.replaceFile(entry)
+        // 没有路由的文件、只是 offset 变了的文件，派生的缓存都不用失效
+        if (!changed) return
+        modCount.incrementAndGet()
+        val added = table.fileEntries(file.url)
+        if (!removed.isEmpty || !added.isEmpty) {
+            project.messageBus.syncPublisher(TOPIC).routesChanged(file.url, removed, added, table.version)
+        }
+    }
+
+    private fun markDirty(event: PsiTreeChangeEvent) {
+        if (!initialized && !rebuilding) return
+        val psiFile = event.file ?: event.child as? PsiFile ?: event.oldChild as? PsiFile ?: return
+        val file = psiFile.viewProvider.virtualFile
+        if (file.extension == "java" || file.extension == "kt") {
+            dirtyFiles.add(file)
+            scheduleUpdate()
+        }
+    }
+
+    override fun getModificationCount(): Long = modCount.get()
+
+    override fun dispose() {
+        val saved = table
+        table = RouteTable()
+        if (initialized) {
+            // 没处理的脏文件不落盘，下次打开时会被当作新文件重新扫描
+            dirtyFiles.forEach { saved.removeFile(it.url) }
+            RouteTableStorage.save(project, saved)
+        }
+        dirtyFiles.clear()
+        pendingFiles.clear()
+    }
+
+    companion object {
+        @JvmField
+        val TOPIC: Topic<RouteIndexListener> = Topic.create("ARouter route index", RouteIndexListener::class.java)
+
+        // 所有工程共用一个线程更新路由表
+        private val UPDATE_EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("ARouter Route Index", 1)
+
+        fun getInstance(project: Project): RouteIndex = project.getService(RouteIndex::class.java)
+
+        /**
+         * 多个已经按 order 排好的列表归并成一个，堆里放每个列表的 [列表下标, 当前元素下标]
+         */
+        private fun <T> mergeSorted(lists: List<List<T>>, order: Comparator<in T>): List<T> {
+            val sources = lists.filter { it.isNotEmpty() }
+            if (sources.size <= 1) return sources.firstOrNull().orEmpty()
+            val heads = PriorityQueue<IntArray>(sources.size) { a, b -> order.compare(sources[a[0]][a[1]], sources[b[0]][b[1]]) }
+            sources.indices.forEach { heads.add(intArrayOf(it, 0)) }
+            val result = ArrayList<T>(sources.sumOf { it.size })
+            while (heads.isNotEmpty()) {
+                val head = heads.poll()
+                val source = sources[head[0]]
+                result.add(source[head[1]])
+                if (++head[1] < source.size) heads.add(head)
+            }
+            return result
+        }
+    }
+}
+
+/**
+ * 源码路由表的变化，在修改路由表的线程上同步回调
+ */
+interface RouteIndexListener {
+
+    /**
+     * 一个文件重新扫描，removed 是旧内容，added 是新内容，version 是改完后路由表的版本(见 [RouteIndex.sourceEntries])
+     */
+    fun routesChanged(fileUrl: String, removed: FileEntries, added: FileEntries, version: Long) {}
+
+    /**
+     * 整张表被替换(重建或从磁盘加载)，增量数据需要重新计算
+     */
+    fun routesReset() {}
+
+    /**
+     * 一次 [RouteIndex.verify] 跑完，路由表和依赖库都是最新的；在 read action 里回调
+     */
+    fun updateFinished() {}
+}
+
+/**
+ * 扫描一个源码文件的结果，timeStamp/length 是扫描时 VFS 里的值
+ */
+class FileRoutes(
+    val file: VirtualFile,
+    val timeStamp: Long,
+    val length: Long,
+    val routes: List<RouteDeclaration>,
+    val calls: List<RouteCallSite>,
+    val extras: List<RouteExtra>,
+    val interceptors: List<RouteInterceptor>,
+    val providers: List<RouteProvider>,
+    val patternCalls: List<RouteCallSite>,
+    val inheritingClasses: List<String>
+) {
+    val isEmpty: Boolean
+        get() = routes.isEmpty() && calls.isEmpty() && extras.isEmpty() && interceptors.isEmpty() && providers.isEmpty() &&
+            patternCalls.isEmpty() && inheritingClasses.isEmpty()
+}
@@ -0,0 +1,185 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectRootManager
+import com.intellij.openapi.util.text.StringUtil
+import com.intellij.psi.JavaPsiFacade
+import com.intellij.psi.PsiAnnotation
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiExpression
+import com.intellij.psi.PsiField
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.psi.PsiReferenceExpression
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.intellij.psi.util.PsiTreeUtil
+import org.jetbrains.kotlin.asJava.toLightAnnotation
+import org.jetbrains.kotlin.idea.references.mainReference
+import org.jetbrains.kotlin.lexer.KtTokens
+import org.jetbrains.kotlin.psi.KtAnnotationEntry
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import org.jetbrains.kotlin.psi.KtConstantExpression
+import org.jetbrains.kotlin.psi.KtExpression
+import org.jetbrains.kotlin.psi.KtNameReferenceExpression
+import org.jetbrains.kotlin.psi.KtParenthesizedExpression
+import org.jetbrains.kotlin.psi.KtPrefixExpression
+import org.jetbrains.kotlin.psi.KtProperty
+import org.jetbrains.kotlin.psi.KtQualifiedExpression
+import org.jetbrains.kotlin.psi.KtReferenceExpression
+
+/**
+ * ARouter 的 @Interceptor：每次跳转前按 priority 从小到大依次执行。
+ *
+ * 源码里的拦截器扫描时记进 [RouteIndex]，依赖库的从 `ARouter$$Interceptors$$xxx` 读出来，
+ * 两边都是排好序的；合并后的整条链按路由表和依赖变化缓存，gutter 和弹窗直接取。
+ */
+object RouteInterceptors {
+
+    const val INTERCEPTOR_ANNOTATION_NAME = "com.alibaba.android.arouter.facade.annotation.Interceptor"
+    const val INTERCEPTOR_SHORT_NAME = "Interceptor"
+    const val PRIORITY_ATTRIBUTE = "priority"
+    const val NAME_ATTRIBUTE = "name"
+
+    // 链上调了 greenChannel() 的跳转不走拦截器
+    private const val GREEN_CHANNEL_METHOD = "greenChannel"
+    private const val TOOLTIP_TITLE = "ARouter Marker"
+
+    val ORDER: Comparator<InterceptorTarget> = compareBy({ it.priority }, { it.className })
+
+    /**
+     * java 类上的 @Interceptor(priority = N, name = "...")
+     */
+    fun javaInterceptor(annotation: PsiAnnotation): RouteInterceptor? {
+        if (annotation.nameReferenceElement?.referenceName != INTERCEPTOR_SHORT_NAME) return null
+        if (annotation.qualifiedName != INTERCEPTOR_ANNOTATION_NAME) return null
+        val psiClass = PsiTreeUtil.getParentOfType(annotation, PsiClass::class.java) ?: return null
+        val className = psiClass.qualifiedName ?: return null
+        val helper = JavaPsiFacade.getInstance(annotation.project).constantEvaluationHelper
+        val priorityValue = annotation.findAttributeValue(PRIORITY_ATTRIBUTE) as? PsiExpression ?: return null
+        val priority = helper.computeConstantExpression(priorityValue) as? Int ?: return null
+        val name = PathResolver.javaPath(annotation.findDeclaredAttributeValue(NAME_ATTRIBUTE) as? PsiExpression)
+        return RouteInterceptor(className, priority, name.orEmpty(), psiClass.textOffset)
+    }
+
+    /**
+     * kotlin 类上的 @Interceptor(priority = N, name = "...")，priority 也可以按位置写在第一个
+     */
+    fun kotlinInterceptor(annotationEntry: KtAnnotationEntry): RouteInterceptor? {
+        if (annotationEntry.shortName?.asString() != INTERCEPTOR_SHORT_NAME) return null
+        if (annotationEntry.toLightAnnotation()?.qualifiedName != INTERCEPTOR_ANNOTATION_NAME) return null
+        val ktClass = PsiTreeUtil.getParentOfType(annotationEntry, KtClassOrObject::class.java) ?: return null
+        val className = ktClass.fqName?.asString() ?: return null
+        val arguments = annotationEntry.valueArguments
+        val priorityArgument = arguments.firstOrNull { it.getArgumentName()?.asName?.asString() == PRIORITY_ATTRIBUTE }
+            ?: arguments.firstOrNull { it.getArgumentName() == null }
+        val priority = kotlinInt(priorityArgument?.getArgumentExpression()) ?: return null
+        val nameArgument = arguments.firstOrNull { it.getArgumentName()?.asName?.asString() == NAME_ATTRIBUTE }
+            ?: arguments.filter { it.getArgumentName() == null }.getOrNull(1)
+        val name = PathResolver.kotlinPath(nameArgument?.getArgumentExpression())
+        return RouteInterceptor(className, priority, name.orEmpty(), ktClass.textOffset)
+    }
+
+    /**
+     * 工程里全部拦截器，按执行顺序排列。需要在 read action 里调用。
+     */
+    fun chain(project: Project): List<InterceptorTarget> {
+        val index = RouteIndex.getInstance(project)
+        return CachedValuesManager.getManager(project).getCachedValue(project) {
+            CachedValueProvider.Result.create(index.interceptors(), index, ProjectRootManager.getInstance(project))
+        }
+    }
+
+    /**
+     * 这次跳转会经过的拦截器，build(...) 之后调了 greenChannel() 的为空
+     */
+    fun chainOf(buildCall: PsiElement): List<InterceptorTarget> {
+        if (isGreenChannel(buildCall)) return emptyList()
+        return chain(buildCall.project)
+    }
+
+    fun isGreenChannel(buildCall: PsiElement): Boolean = callsAfter(buildCall).contains(GREEN_CHANNEL_METHOD)
+
+    /**
+     * 同一 priority 的拦截器，ARouter 初始化时会直接抛异常
+     */
+    fun duplicatePriorities(chain: List<InterceptorTarget>): Set<Int> {
+        return chain.zipWithNext().filter { (a, b) -> a.priority == b.priority }.map { it.first.priority }.toSet()
+    }
+
+    /**
+     * build 调用 gutter 的提示，带上这次跳转会经过的拦截器；dumb mode 下不查
+     */
+    fun tooltip(buildCall: PsiElement): String {
+        if (DumbService.isDumb(buildCall.project)) return TOOLTIP_TITLE
+        // 服务获取不经过拦截器
+        if (RouteServices.serviceClassOf(buildCall) != null) return TOOLTIP_TITLE
+        val chain = when {
+            isGreenChannel(buildCall) -> "skipped by greenChannel()"
+            else -> chain(buildCall.project).takeIf { it.isNotEmpty() }
+                ?.joinToString(" → ") { "${it.className.substringAfterLast('.')}(${it.priority})" }
+                ?: "none"
+        }
+        return "<html>$TOOLTIP_TITLE<br>Interceptors: ${StringUtil.escapeXmlEntities(chain)}</html>"
+    }
+
+    fun resolve(project: Project, target: InterceptorTarget): PsiClass? = RouteIndex.getInstance(project).resolve(target.className, target.fileUrl)
+
+    /**
+     * build(...) 后面链式调用的方法名，比如 withString、greenChannel、navigation
+     */
+    private fun callsAfter(buildCall: PsiElement): List<String> {
+        val names = ArrayList<String>()
+        when (buildCall) {
+            is PsiMethodCallExpression -> {
+                var current: PsiElement = buildCall
+                while (true) {
+                    val reference = current.parent as? PsiReferenceExpression ?: break
+                    val call = reference.parent as? PsiMethodCallExpression ?: break
+                    reference.referenceName?.let { names.add(it) }
+                    current = call
+                }
+            }
+            is KtCallExpression -> {
+                var current: PsiElement = buildCall.parent as? KtQualifiedExpression ?: return names
+                while (true) {
+                    val qualified = current.parent as? KtQualifiedExpression ?: break
+                    if (qualified.receiverExpression != current) break
+                    val selector = qualified.selectorExpression as? KtCallExpression ?: break
+                    (selector.calleeExpression as? KtNameReferenceExpression)?.getReferencedName()?.let { names.add(it) }
+                    current = qualified
+                }
+            }
+        }
+        return names
+    }
+
+    private fun kotlinInt(expression: KtExpression?): Int? {
+        return when (expression) {
+            is KtConstantExpression -> expression.text.replace("_", "").toIntOrNull()
+            is KtParenthesizedExpression -> kotlinInt(expression.expression)
+            is KtPrefixExpression -> {
+                val value = kotlinInt(expression.baseExpression) ?: return null
+                when (expression.operationToken) {
+                    KtTokens.MINUS -> -value
+                    KtTokens.PLUS -> value
+                    else -> null
+                }
+            }
+            is KtQualifiedExpression -> kotlinInt(expression.selectorExpression)
+            is KtReferenceExpression -> when (val declaration = expression.mainReference.resolve()) {//常量引用
+                is KtProperty -> kotlinInt(declaration.initializer)
+                is PsiField -> declaration.computeConstantValue() as? Int
+                else -> null
+            }
+            else -> null
+        }
+    }
+}
+
+/**
+ * 源码里的一个 @Interceptor，offset 是类名的位置
+ */
+data class RouteInterceptor(val className: String, val priority: Int, val name: String, val offset: Int)
@@ -0,0 +1,61 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.codeInspection.LocalInspectionTool
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.openapi.module.Module
+import com.intellij.openapi.module.ModuleUtilCore
+import com.intellij.openapi.roots.ModuleRootManager
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.roots.ProjectRootManager
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiElementVisitor
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+
+/**
+ * build(path) 跳到了调用方模块不依赖的模块里的路由。
+ *
+ * 目标模块从 [RouteIndex] 查到的源码位置得到；调用方模块的依赖闭包按模块缓存，
+ * 随 [ProjectRootManager] 的修改计数失效，所以高亮时每个调用只是几次查表。
+ * 依赖库里的路由看不出属于哪个模块，不检查。
+ */
+class RouteModuleDependencyInspection : LocalInspectionTool() {
+
+    override fun buildVisitor(holder: ProblemsHolder, isOnTheFly: Boolean): PsiElementVisitor {
+        val caller = ModuleUtilCore.findModuleForPsiElement(holder.file) ?: return PsiElementVisitor.EMPTY_VISITOR
+        val index = RouteIndex.getInstance(holder.project)
+        if (!index.prepareForInspection(isOnTheFly)) return PsiElementVisitor.EMPTY_VISITOR
+        val fileIndex = ProjectFileIndex.getInstance(holder.project)
+        val fileManager = VirtualFileManager.getInstance()
+        return object : PsiElementVisitor() {
+            override fun visitElement(element: PsiElement) {
+                val path = RouteCalls.pathOf(element) ?: return
+                val targetModules = index.targets(path).mapNotNull { target ->
+                    target.fileUrl?.let { fileManager.findFileByUrl(it) }?.let { fileIndex.getModuleForFile(it) }
+                }
+                if (targetModules.isEmpty()) return
+                val reachable = dependencyClosure(caller)
+                if (targetModules.any { it in reachable }) return
+                val argument = RouteCalls.pathArgumentOf(element) ?: return
+                val names = targetModules.distinct().joinToString(", ") { "'${it.name}'" }
+                holder.registerProblem(argument, "Route '$path' is declared in $names, which module '${caller.name}' does not depend on")
+            }
+        }
+    }
+
+    companion object {
+
+        /**
+         * 模块自己加上它直接、间接依赖的模块
+         */
+        fun dependencyClosure(module: Module): Set<Module> {
+            return CachedValuesManager.getManager(module.project).getCachedValue(module) {
+                val modules = HashSet<Module>()
+                modules.add(module)
+                ModuleRootManager.getInstance(module).orderEntries().recursively().forEachModule { modules.add(it); true }
+                CachedValueProvider.Result.create<Set<Module>>(modules, ProjectRootManager.getInstance(module.project))
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiManager
+import com.intellij.psi.util.PsiTreeUtil
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import java.io.Writer
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveTask
+
+/**
+ * 模块/类到路由的导航图。
+ *
+ * 节点分三种：模块、类、路由；边有 类→路由(调用次数)、路由→目标类、模块→模块(跨模块调用次数)。
+ * 边按起点排好序放在 int 数组里(CSR)，[targetsOf] 只看一段连续区间。
+ */
+class RouteNavigationGraph private constructor(
+    private val names: Array<String>,
+    private val kinds: ByteArray,
+    // 类节点所属的模块节点，其它节点为 -1
+    private val owners: IntArray,
+    // 节点 i 的出边是 edgeTo/edgeWeight 的 [offsets[i], offsets[i + 1])
+    private val offsets: IntArray,
+    private val edgeTo: IntArray,
+    private val edgeWeight: IntArray
+) {
+
+    val nodeCount: Int
+        get() = names.size
+
+    val edgeCount: Int
+        get() = edgeTo.size
+
+    fun moduleEdges(): List<GraphEdge> = edges(MODULE, MODULE)
+
+    /**
+     * 类调用路由的边，路由的目标类拼在 to 后面
+     */
+    fun classEdges(): List<GraphEdge> {
+        val result = ArrayList<GraphEdge>()
+        for (from in names.indices) {
+            if (kinds[from] != CLASS) continue
+            forEachEdge(from) { route, weight ->
+                if (kinds[route] != ROUTE) return@forEachEdge
+                val targets = targetsOf(route).joinToString(", ") { names[it] }
+                result.add(GraphEdge(names[from], names[route], targets, weight))
+            }
+        }
+        return result
+    }
+
+    fun targetsOf(route: Int): List<Int> {
+        val result = ArrayList<Int>(1)
+        forEachEdge(route) { to, _ -> if (kinds[to] == CLASS) result.add(to) }
+        return result
+    }
+
+    /**
+     * Graphviz DOT：每个模块一个 cluster，路由画成方框
+     */
+    fun writeDot(out: Writer) {
+        out.write("digraph routes {\n  rankdir=LR;\n  node [shape=ellipse, fontsize=10];\n")
+        for (module in names.indices) {
+            if (kinds[module] != MODULE) continue
+            out.write("  subgraph \"cluster_$module\" {\n    label=${quote(names[module])};\n")
+            for (node in names.indices) {
+                if (owners[node] == module) out.write("    n$node [label=${quote(names[node].substringAfterLast('.'))}];\n")
+            }
+            out.write("  }\n")
+        }
+        for (node in names.indices) {
+            if (kinds[node] == ROUTE) out.write("  n$node [shape=box, label=${quote(names[node])}];\n")
+        }
+        for (from in names.indices) {
+            if (kinds[from] == MODULE) continue
+            forEachEdge(from) { to, weight ->
+                out.write(if (weight > 1) "  n$from -> n$to [label=\"$weight\"];\n" else "  n$from -> n$to;\n")
+            }
+        }
+        out.write("}\n")
+    }
+
+    private fun edges(fromKind: Byte, toKind: Byte): List<GraphEdge> {
+        val result = ArrayList<GraphEdge>()
+        for (from in names.indices) {
+            if (kinds[from] != fromKind) continue
+            forEachEdge(from) { to, weight ->
+                if (kinds[to] == toKind) result.add(GraphEdge(names[from], names[to], null, weight))
+            }
+        }
+        return result
+    }
+
+    private fun forEachEdge(from: Int, consumer: (to: Int, weight: Int) -> Unit) {
+        for (i in offsets[from] until offsets[from + 1]) {
+            consumer(edgeTo[i], edgeWeight[i])
+        }
+    }
+
+    private fun quote(text: String): String = "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\""
+
+    /**
+     * from 到 to 的一条边，类边的 targets 是路由的目标类
+     */
+    data class GraphEdge(val from: String, val to: String, val targets: String?, val weight: Int)
+
+    /**
+     * 一次调用：调用方模块和类，路由，以及路由的目标类和它所在模块
+     */
+    private class CallEdge(val module: String, val caller: String, val path: String, val targets: List<Pair<String, String>>)
+
+    /**
+     * 一个模块的调用点，超过 [CHUNK_SIZE] 就对半拆开；每块一个 read action
+     */
+    private class ScanTask(
+        private val project: Project,
+        private val module: String,
+        private val sites: List<RouteSite>,
+        private val indicator: ProgressIndicator
+    ) : RecursiveTask<List<CallEdge>>() {
+
+        override fun compute(): List<CallEdge> {
+            if (sites.size > CHUNK_SIZE) {
+                val middle = sites.size / 2
+                val left = ScanTask(project, module, sites.subList(0, middle), indicator).fork()
+                val right = ScanTask(project, module, sites.subList(middle, sites.size), indicator).compute()
+                return left.join() + right
+            }
+            indicator.checkCanceled()
+            return ReadAction.compute<List<CallEdge>, RuntimeException> {
+                val index = RouteIndex.getInstance(project)
+                val psiManager = PsiManager.getInstance(project)
+                val fileManager = VirtualFileManager.getInstance()
+                sites.mapNotNull { site ->
+                    val file = fileManager.findFileByUrl(site.fileUrl)?.let { psiManager.findFile(it) } ?: return@mapNotNull null
+                    val caller = when (val declaration = PsiTreeUtil.getParentOfType(file.findElementAt(site.offset), PsiClass::class.java, KtClassOrObject::class.java)) {
+                        is PsiClass -> declaration.qualifiedName
+                        is KtClassOrObject -> declaration.fqName?.asString()
+                        else -> null
+                    } ?: file.name
+                    val targets = index.targets(site.path).map { it.className to moduleOf(project, it.fileUrl) }
+                    CallEdge(module, caller, site.path, targets)
+                }
+            }
+        }
+    }
+
+    private class Builder {
+        private val ids = HashMap<String, Int>()
+        private val names = ArrayList<String>()
+        private val kinds = ArrayList<Byte>()
+        private val owners = ArrayList<Int>()
+        private val weights = HashMap<Long, Int>()
+
+        fun node(kind: Byte, name: String, owner: Int = -1): Int {
+            return ids.getOrPut("$kind:$name") {
+                names.add(name)
+                kinds.add(kind)
+                owners.add(owner)
+                names.size - 1
+            }
+        }
+
+        fun edge(from: Int, to: Int, weight: Int) {
+            weights.merge((from.toLong() shl 32) or to.toLong(), weight) { a, b -> a + b }
+        }
+
+        fun build(): RouteNavigationGraph {
+            val keys = weights.keys.sorted()
+            val offsets = IntArray(names.size + 1)
+            keys.forEach { offsets[(it ushr 32).toInt() + 1]++ }
+            for (i in 1..names.size) offsets[i] += offsets[i - 1]
+            val edgeTo = IntArray(keys.size) { (keys[it] and 0xffffffffL).toInt() }
+            val edgeWeight = IntArray(keys.size) { weights[keys[it]]!! }
+            return RouteNavigationGraph(names.toTypedArray(), kinds.toByteArray(), owners.toIntArray(), offsets, edgeTo, edgeWeight)
+        }
+    }
+
+    companion object {
+        const val MODULE: Byte = 0
+        const val CLASS: Byte = 1
+        const val ROUTE: Byte = 2
+
+        private const val CHUNK_SIZE = 256
+        private const val MAX_PARALLELISM = 8
+        private const val LIBRARY = "<library>"
+        private const val NO_MODULE = "<no module>"
+
+        /**
+         * 按模块分组调用点，在 ForkJoinPool 上并行解析调用方，最后单线程合并成邻接表
+         */
+        fun build(project: Project, indicator: ProgressIndicator): RouteNavigationGraph {
+            val sitesByModule = ReadAction.compute<Map<String, List<RouteSite>>, RuntimeException> {
+                val index = RouteIndex.getInstance(project)
+                index.verify()
+                index.allCallSites().groupBy { moduleOf(project, it.fileUrl) }
+            }
+
+            val pool = ForkJoinPool(Runtime.getRuntime().availableProcessors().coerceIn(1, MAX_PARALLELISM))
+            val calls = try {
+                sitesByModule.map { (module, sites) -> pool.submit(ScanTask(project, module, sites, indicator)) }
+                    .flatMap { it.join() }
+            } finally {
+                pool.shutdownNow()
+            }
+
+            indicator.checkCanceled()
+            val builder = Builder()
+            for (call in calls) {
+                val module = builder.node(MODULE, call.module)
+                val caller = builder.node(CLASS, call.caller, module)
+                val route = builder.node(ROUTE, call.path)
+                builder.edge(caller, route, 1)
+                // 一处调用对每个目标模块只算一次，同一模块里有多个目标时不重复计数
+                val targetModules = LinkedHashSet<Int>()
+                for ((className, targetModuleName) in call.targets) {
+                    val targetModule = builder.node(MODULE, targetModuleName)
+                    builder.edge(route, builder.node(CLASS, className, targetModule), 0)
+                    if (targetModule != module) targetModules.add(targetModule)
+                }
+                targetModules.forEach { builder.edge(module, it, 1) }
+            }
+            return builder.build()
+        }
+
+        private fun moduleOf(project: Project, fileUrl: String?): String {
+            fileUrl ?: return LIBRARY
+            val file = VirtualFileManager.getInstance().findFileByUrl(fileUrl) ?: return NO_MODULE
+            return ProjectFileIndex.getInstance(project).getModuleForFile(file)?.name ?: NO_MODULE
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.alibaba.android.arouter.idea.extensions
+
+/**
+ * 路径的规范形式：去掉引号、query/fragment，斜杠合并，以 '/' 开头、不以 '/' 结尾。
+ *
+ * 路由表的 key 和 [PathFilter] 的比较都用这个形式，判断是否同一路径只需要一次字符串相等。
+ */
+object RoutePath {
+
+    fun normalize(raw: String): String {
+        if (isNormalized(raw)) return raw
+        var path = raw.trim().removeSurrounding("\"").trim()
+        val cut = path.indexOfAny(charArrayOf('?', '#'))
+        if (cut >= 0) path = path.substring(0, cut)
+        if (path.isEmpty()) return path
+
+        val builder = StringBuilder(path.length + 1).append('/')
+        for (c in path) {
+            if (c == '/' && builder[builder.length - 1] == '/') continue
+            builder.append(c)
+        }
+        if (builder.length > 1 && builder[builder.length - 1] == '/') builder.setLength(builder.length - 1)
+        return builder.toString()
+    }
+
+    /**
+     * 绝大多数路径本来就是规范的，先扫一遍避免创建新字符串
+     */
+    private fun isNormalized(path: String): Boolean {
+        if (path.length < 2 || path[0] != '/' || path[path.length - 1] == '/') return false
+        for (i in 1 until path.length) {
+            val c = path[i]
+            if (c == '?' || c == '#' || c == '"' || c.isWhitespace() || (c == '/' && path[i - 1] == '/')) return false
+        }
+        return true
+    }
+}
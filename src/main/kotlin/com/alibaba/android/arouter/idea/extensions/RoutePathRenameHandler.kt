@@ -0,0 +1,47 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.actionSystem.CommonDataKeys
+import com.intellij.openapi.actionSystem.DataContext
+import com.intellij.openapi.editor.Editor
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.ui.InputValidator
+import com.intellij.openapi.ui.Messages
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiLiteralExpression
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.refactoring.rename.RenameHandler
+import org.jetbrains.kotlin.psi.KtStringTemplateExpression
+
+/**
+ * 光标在 build("...") 或 @Route(path = "...") 的路径上时 Shift+F6 改路径，交给 [RoutePathRenameProcessor]
+ */
+class RoutePathRenameHandler : RenameHandler {
+
+    override fun isAvailableOnDataContext(dataContext: DataContext): Boolean = findReference(dataContext) != null
+
+    override fun isRenaming(dataContext: DataContext): Boolean = isAvailableOnDataContext(dataContext)
+
+    override fun invoke(project: Project, editor: Editor?, file: PsiFile?, dataContext: DataContext) {
+        val reference = findReference(dataContext) ?: return
+        val newPath = Messages.showInputDialog(project, "New route path:", "Rename Route Path", null, reference.path, object : InputValidator {
+            override fun checkInput(inputString: String): Boolean = RouteTable.isValidPath(inputString)
+
+            override fun canClose(inputString: String): Boolean = checkInput(inputString)
+        }) ?: return
+        if (newPath == reference.path) return
+        RoutePathRenameProcessor(project, reference.element, reference.path, newPath).run()
+    }
+
+    override fun invoke(project: Project, elements: Array<out PsiElement>, dataContext: DataContext) {
+        invoke(project, null, null, dataContext)
+    }
+
+    private fun findReference(dataContext: DataContext): RoutePathReference? {
+        val editor = CommonDataKeys.EDITOR.getData(dataContext) ?: return null
+        val file = CommonDataKeys.PSI_FILE.getData(dataContext) ?: return null
+        val leaf = file.findElementAt(editor.caretModel.offset) ?: return null
+        val literal = PsiTreeUtil.getParentOfType(leaf, PsiLiteralExpression::class.java, KtStringTemplateExpression::class.java) ?: return null
+        return literal.references.firstNotNullOfOrNull { it as? RoutePathReference }
+    }
+}
@@ -0,0 +1,104 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.ElementManipulators
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiManager
+import com.intellij.psi.SmartPointerManager
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.refactoring.BaseRefactoringProcessor
+import com.intellij.refactoring.ui.UsageViewDescriptorAdapter
+import com.intellij.usageView.UsageInfo
+import com.intellij.usageView.UsageViewDescriptor
+import org.jetbrains.kotlin.psi.KtClassOrObject
+
+/**
+ * 路由路径重命名：@Route 声明和 build 调用都从 [RouteIndex] 里取，不做全文搜索。
+ *
+ * 每处用法记下路径真正写在哪个字面量上(可能是常量的初始值)，多处共用一个常量时只改一次；
+ * 字面量按 [RoutePath.normalize] 比较，改写时保留原来的 query/fragment；
+ * 全部修改在一个 write command 里完成，可以整体撤销。
+ */
+class RoutePathRenameProcessor(
+    project: Project,
+    private val element: PsiElement,
+    private val oldPath: String,
+    private val newPath: String
+) : BaseRefactoringProcessor(project) {
+
+    init {
+        isPreviewUsages = true
+    }
+
+    override fun createUsageViewDescriptor(usages: Array<out UsageInfo>): UsageViewDescriptor {
+        return object : UsageViewDescriptorAdapter() {
+            override fun getElements(): Array<PsiElement> = arrayOf(element)
+
+            override fun getProcessedElementsHeader(): String = "Route path \"$oldPath\""
+        }
+    }
+
+    override fun findUsages(): Array<UsageInfo> {
+        val index = RouteIndex.getInstance(myProject)
+        val psiManager = PsiManager.getInstance(myProject)
+        val fileManager = VirtualFileManager.getInstance()
+        val fileIndex = ProjectFileIndex.getInstance(myProject)
+        val usages = ArrayList<UsageInfo>()
+        val normalizedOld = RoutePath.normalize(oldPath)
+
+        fun add(expression: PsiElement?) {
+            expression ?: return
+            val literal = PathResolver.sourceLiteral(expression) ?: return
+            val raw = PathResolver.literalPath(literal) ?: return
+            if (RoutePath.normalize(raw) != normalizedOld) return
+            val file = literal.containingFile?.virtualFile ?: return
+            if (!fileIndex.isInContent(file)) return//依赖库里的改不了
+            usages.add(RoutePathUsageInfo(expression, literal, suffixOf(raw)))
+        }
+
+        index.targets(oldPath).forEach { target ->
+            val url = target.fileUrl ?: return@forEach
+            val file = fileManager.findFileByUrl(url)?.let { psiManager.findFile(it) } ?: return@forEach
+            val declaration = PsiTreeUtil.getParentOfType(file.findElementAt(target.offset), PsiClass::class.java, KtClassOrObject::class.java)
+            add(declaration?.let { RouteFileScanner.declaredPathExpression(it) })
+        }
+        index.callSites(oldPath).forEach { site ->
+            val file = fileManager.findFileByUrl(site.fileUrl)?.let { psiManager.findFile(it) } ?: return@forEach
+            add(RouteCalls.buildCallAt(file, site.offset)?.let { RouteCalls.pathArgumentOf(it) })
+        }
+        return usages.toTypedArray()
+    }
+
+    override fun performRefactoring(usages: Array<out UsageInfo>) {
+        val literals = LinkedHashMap<PsiElement, String>()
+        usages.forEach { usage ->
+            if (usage !is RoutePathUsageInfo) return@forEach
+            usage.literal?.let { literals[it] = usage.suffix }
+        }
+        literals.forEach { (literal, suffix) -> ElementManipulators.handleContentChange(literal, newPath + suffix) }
+    }
+
+    /**
+     * 路径后面的 ?query 或 #fragment，没有时为空
+     */
+    private fun suffixOf(raw: String): String {
+        val cut = raw.indexOfAny(charArrayOf('?', '#'))
+        return if (cut >= 0) raw.substring(cut) else ""
+    }
+
+    override fun getCommandName(): String = "Rename route path $oldPath to $newPath"
+}
+
+/**
+ * 一处路径用法，literal 是实际要改的字面量，suffix 是改写时要保留的 query/fragment
+ */
+class RoutePathUsageInfo(expression: PsiElement, literal: PsiElement, val suffix: String) : UsageInfo(expression) {
+
+    private val literalPointer = SmartPointerManager.createPointer(literal)
+
+    val literal: PsiElement?
+        get() = literalPointer.element
+}
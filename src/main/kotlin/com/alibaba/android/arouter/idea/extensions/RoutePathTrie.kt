@@ -0,0 +1,105 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.Project
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+
+/**
+ * 路由路径的前缀树，给 build("...") 补全用。
+ *
+ * 子节点用有序 char 数组 + 二分查找，比每个节点一个 HashMap 省内存；
+ * 叶子上记目标类的短名字，补全时直接显示。
+ */
+class RoutePathTrie {
+
+    private val root = Node()
+
+    var size = 0
+        private set
+
+    fun add(path: String, className: String) {
+        var node = root
+        for (c in path) {
+            node = node.childOrCreate(c)
+        }
+        if (node.classNames == null) size++
+        val shortName = className.substringAfterLast('.')
+        val names = node.classNames
+        node.classNames = when {
+            names == null -> arrayOf(shortName)
+            shortName in names -> names
+            else -> names + shortName
+        }
+    }
+
+    /**
+     * 以 prefix 开头的路径，按字典序，最多 limit 条
+     */
+    fun collect(prefix: String, limit: Int, consumer: (path: String, classNames: Array<String>) -> Unit) {
+        var node = root
+        for (c in prefix) {
+            node = node.child(c) ?: return
+        }
+        val builder = StringBuilder(prefix)
+        var remaining = limit
+        fun visit(current: Node) {
+            if (remaining <= 0) return
+            current.classNames?.let {
+                consumer(builder.toString(), it)
+                remaining--
+            }
+            for (i in 0 until current.childCount) {
+                builder.append(current.keys[i])
+                visit(current.children[i]!!)
+                builder.setLength(builder.length - 1)
+                if (remaining <= 0) return
+            }
+        }
+        visit(node)
+    }
+
+    private class Node {
+        var keys = CharArray(0)
+        var children = arrayOfNulls<Node>(0)
+        var childCount = 0
+        var classNames: Array<String>? = null
+
+        fun child(c: Char): Node? {
+            val index = keys.binarySearch(c, 0, childCount)
+            return if (index >= 0) children[index] else null
+        }
+
+        fun childOrCreate(c: Char): Node {
+            val index = keys.binarySearch(c, 0, childCount)
+            if (index >= 0) return children[index]!!
+            val insert = -index - 1
+            if (childCount == keys.size) {
+                val capacity = maxOf(2, childCount * 2)
+                keys = keys.copyOf(capacity)
+                children = children.copyOf(capacity)
+            }
+            System.arraycopy(keys, insert, keys, insert + 1, childCount - insert)
+            System.arraycopy(children, insert, children, insert + 1, childCount - insert)
+            val node = Node()
+            keys[insert] = c
+            children[insert] = node
+            childCount++
+            return node
+        }
+    }
+
+    companion object {
+
+        /**
+         * 当前工程的前缀树，路由表变化后重建，数据取自 [RouteIndex.allTargets] 共用的快照。需要在 read action 里调用。
+         */
+        fun getInstance(project: Project): RoutePathTrie {
+            val index = RouteIndex.getInstance(project)
+            return CachedValuesManager.getManager(project).getCachedValue(project) {
+                val trie = RoutePathTrie()
+                index.allTargets().forEach { trie.add(it.path, it.className) }
+                CachedValueProvider.Result.create(trie, index)
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.psi.JavaTokenType
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiExpression
+import com.intellij.psi.PsiParenthesizedExpression
+import com.intellij.psi.PsiPolyadicExpression
+import org.jetbrains.kotlin.lexer.KtTokens
+import org.jetbrains.kotlin.psi.KtBinaryExpression
+import org.jetbrains.kotlin.psi.KtEscapeStringTemplateEntry
+import org.jetbrains.kotlin.psi.KtExpression
+import org.jetbrains.kotlin.psi.KtLiteralStringTemplateEntry
+import org.jetbrains.kotlin.psi.KtParenthesizedExpression
+import org.jetbrains.kotlin.psi.KtStringTemplateEntryWithExpression
+import org.jetbrains.kotlin.psi.KtStringTemplateExpression
+import org.jetbrains.kotlin.psi.KtValueArgument
+
+/**
+ * 动态拼出来的路径，比如 "/item/" + type、"/item/$type"，编译成按段匹配的模式：
+ * 能算出值的部分原样保留，算不出来的部分是通配符，通配符不跨 '/'。
+ */
+class RoutePattern private constructor(val source: String, val segments: List<Segment>) {
+
+    fun matches(path: String): Boolean {
+        val values = splitSegments(path)
+        return values.size == segments.size && segments.indices.all { segments[it].matches(values[it]) }
+    }
+
+    override fun toString(): String = segments.joinToString("/", prefix = "/")
+
+    /**
+     * 路径的一段，parts 之间是通配符；只有一个 part 时就是固定的一段
+     */
+    class Segment(private val parts: List<String>) {
+
+        val isExact: Boolean
+            get() = parts.size == 1
+
+        val text: String
+            get() = parts[0]
+
+        val isWildcardOnly: Boolean
+            get() = !isExact && parts.all { it.isEmpty() }
+
+        fun matches(value: String): Boolean {
+            if (isExact) return value == text
+            if (!value.startsWith(parts.first()) || !value.endsWith(parts.last())) return false
+            if (parts.first().length + parts.last().length > value.length) return false
+            var from = parts.first().length
+            val end = value.length - parts.last().length
+            for (i in 1 until parts.size - 1) {
+                val found = value.indexOf(parts[i], from)
+                if (found < 0 || found + parts[i].length > end) return false
+                from = found + parts[i].length
+            }
+            return true
+        }
+
+        override fun toString(): String = parts.joinToString("*")
+    }
+
+    companion object {
+        private const val WILDCARD = '\u0000'
+
+        /**
+         * 表达式里有算不出来的部分时返回模式；整个都是常量(应该走精确匹配)或者开头就是变量时返回 null
+         */
+        fun compile(expression: PsiElement?): RoutePattern? {
+            val builder = StringBuilder()
+            append(expression ?: return null, builder)
+            if (WILDCARD !in builder) return null
+            return parse(builder.toString())
+        }
+
+        /**
+         * 从 [source] 还原，路由表里记的是这个形式
+         */
+        fun parse(source: String): RoutePattern? {
+            if (!source.startsWith("/")) return null
+            val segments = splitSegments(source).map { Segment(collapse(it.split(WILDCARD))) }
+            if (segments.all { it.isWildcardOnly }) return null
+            return RoutePattern(source, segments)
+        }
+
+        /**
+         * 连续的通配符合并成一个，保证首尾两个 part 存在(可能是空串)
+         */
+        private fun collapse(parts: List<String>): List<String> {
+            if (parts.size <= 1) return parts
+            val middle = parts.subList(1, parts.size - 1).filter { it.isNotEmpty() }
+            return listOf(parts.first()) + middle + parts.last()
+        }
+
+        private fun append(expression: PsiElement, builder: StringBuilder) {
+            when (expression) {
+                is PsiExpression -> {
+                    PathResolver.javaPath(expression)?.let { builder.append(it); return }
+                    when {
+                        expression is PsiParenthesizedExpression && expression.expression != null -> append(expression.expression!!, builder)
+                        expression is PsiPolyadicExpression && expression.operationTokenType == JavaTokenType.PLUS ->
+                            expression.operands.forEach { append(it, builder) }
+                        else -> builder.append(WILDCARD)
+                    }
+                }
+                is KtValueArgument -> expression.getArgumentExpression()?.let { append(it, builder) } ?: builder.append(WILDCARD)
+                is KtStringTemplateExpression -> expression.entries.forEach { entry ->
+                    when (entry) {
+                        is KtLiteralStringTemplateEntry -> builder.append(entry.text)
+                        is KtEscapeStringTemplateEntry -> builder.append(entry.unescapedValue)
+                        is KtStringTemplateEntryWithExpression -> builder.append(PathResolver.kotlinPath(entry.expression) ?: WILDCARD.toString())
+                        else -> builder.append(WILDCARD)
+                    }
+                }
+                is KtExpression -> {
+                    PathResolver.kotlinPath(expression)?.let { builder.append(it); return }
+                    when {
+                        expression is KtParenthesizedExpression && expression.expression != null -> append(expression.expression!!, builder)
+                        expression is KtBinaryExpression && expression.operationToken == KtTokens.PLUS -> {
+                            expression.left?.let { append(it, builder) } ?: builder.append(WILDCARD)
+                            expression.right?.let { append(it, builder) } ?: builder.append(WILDCARD)
+                        }
+                        else -> builder.append(WILDCARD)
+                    }
+                }
+                else -> builder.append(WILDCARD)
+            }
+        }
+
+        fun splitSegments(path: String): List<String> = path.trim('/').split('/')
+    }
+}
@@ -0,0 +1,162 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.util.TextRange
+import com.intellij.patterns.PatternCondition
+import com.intellij.patterns.PlatformPatterns
+import com.intellij.patterns.PsiJavaPatterns
+import com.intellij.psi.ElementManipulators
+import com.intellij.psi.PsiAnnotation
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiElementResolveResult
+import com.intellij.psi.PsiLiteralExpression
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.psi.PsiNameValuePair
+import com.intellij.psi.PsiPolyVariantReferenceBase
+import com.intellij.psi.PsiReference
+import com.intellij.psi.PsiReferenceContributor
+import com.intellij.psi.PsiReferenceProvider
+import com.intellij.psi.PsiReferenceRegistrar
+import com.intellij.psi.ResolveResult
+import com.intellij.psi.impl.source.resolve.ResolveCache
+import com.intellij.util.ProcessingContext
+import org.jetbrains.kotlin.psi.KtAnnotationEntry
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtStringTemplateExpression
+
+/**
+ * build("...") 的参数和 @Route(path = "...") 的值挂上引用，指向路由的目标类；
+ * withXxx("key", ...) 的 key 指向目标类的 @Autowired 字段。
+ *
+ * 有了引用，Ctrl+点击、高亮使用处、Find Usages 都走平台自己的逻辑；解析只查 [RouteIndex]，不搜索。
+ * 模式只匹配 build/withXxx 调用的参数和注解里的字符串，其它字符串字面量不会走到这里；dumb mode 下不给引用。
+ */
+class RouteReferenceContributor : PsiReferenceContributor() {
+
+    override fun registerReferenceProviders(registrar: PsiReferenceRegistrar) {
+        // 字面量 -> 参数列表 -> 调用
+        val javaCallArgument = PlatformPatterns.psiElement(PsiLiteralExpression::class.java)
+            .withSuperParent(2, PlatformPatterns.psiElement(PsiMethodCallExpression::class.java).with(RouteCallName()))
+        registrar.registerReferenceProvider(javaCallArgument, object : PsiReferenceProvider() {
+            override fun getReferencesByElement(element: PsiElement, context: ProcessingContext): Array<PsiReference> {
+                if (DumbService.isDumb(element.project)) return PsiReference.EMPTY_ARRAY
+                val literal = element as PsiLiteralExpression
+                val path = literal.value as? String ?: return PsiReference.EMPTY_ARRAY
+                if (AutowiredExtras.extraCallOf(literal) != null) return arrayOf(RouteExtraReference(literal, path))
+                if (RouteCalls.javaBuildCallOf(literal) == null) return PsiReference.EMPTY_ARRAY
+                return arrayOf(RoutePathReference(literal, path))
+            }
+        })
+        val javaRoutePath = PlatformPatterns.psiElement(PsiLiteralExpression::class.java)
+            .withParent(PsiJavaPatterns.psiNameValuePair().withName(RouteFileScanner.PATH_ATTRIBUTE))
+        registrar.registerReferenceProvider(javaRoutePath, object : PsiReferenceProvider() {
+            override fun getReferencesByElement(element: PsiElement, context: ProcessingContext): Array<PsiReference> {
+                if (DumbService.isDumb(element.project)) return PsiReference.EMPTY_ARRAY
+                val literal = element as PsiLiteralExpression
+                val path = literal.value as? String ?: return PsiReference.EMPTY_ARRAY
+                if (!isJavaRouteAnnotationPath(literal)) return PsiReference.EMPTY_ARRAY
+                return arrayOf(RoutePathReference(literal, path))
+            }
+        })
+
+        // 字符串模板 -> 参数 -> 参数列表 -> 调用或注解
+        val kotlinCallArgument = PlatformPatterns.psiElement(KtStringTemplateExpression::class.java)
+            .withSuperParent(3, PlatformPatterns.psiElement(KtCallExpression::class.java).with(RouteCallName()))
+        registrar.registerReferenceProvider(kotlinCallArgument, object : PsiReferenceProvider() {
+            override fun getReferencesByElement(element: PsiElement, context: ProcessingContext): Array<PsiReference> {
+                if (DumbService.isDumb(element.project)) return PsiReference.EMPTY_ARRAY
+                val template = element as KtStringTemplateExpression
+                val path = PathResolver.literalPath(template) ?: return PsiReference.EMPTY_ARRAY
+                if (AutowiredExtras.extraCallOf(template) != null) return arrayOf(RouteExtraReference(template, path))
+                if (RouteCalls.kotlinBuildCallOf(template) == null) return PsiReference.EMPTY_ARRAY
+                return arrayOf(RoutePathReference(template, path))
+            }
+        })
+        val kotlinRoutePath = PlatformPatterns.psiElement(KtStringTemplateExpression::class.java)
+            .withSuperParent(3, KtAnnotationEntry::class.java)
+        registrar.registerReferenceProvider(kotlinRoutePath, object : PsiReferenceProvider() {
+            override fun getReferencesByElement(element: PsiElement, context: ProcessingContext): Array<PsiReference> {
+                if (DumbService.isDumb(element.project)) return PsiReference.EMPTY_ARRAY
+                val template = element as KtStringTemplateExpression
+                val path = PathResolver.literalPath(template) ?: return PsiReference.EMPTY_ARRAY
+                if (!RouteFileScanner.isKotlinPathArgument(template)) return PsiReference.EMPTY_ARRAY
+                return arrayOf(RoutePathReference(template, path))
+            }
+        })
+    }
+
+    /**
+     * 调用的方法名是 build 或者 withXxx，只看名字不解析
+     */
+    private class RouteCallName<T : PsiElement> : PatternCondition<T>("routeCallName") {
+        override fun accepts(call: T, context: ProcessingContext?): Boolean {
+            val name = AutowiredExtras.methodName(call) ?: return false
+            return name == RouteCalls.BUILD_METHOD || name.startsWith(WITH_PREFIX)
+        }
+    }
+
+    private fun isJavaRouteAnnotationPath(literal: PsiLiteralExpression): Boolean {
+        val pair = literal.parent as? PsiNameValuePair ?: return false
+        if (pair.attributeName != RouteFileScanner.PATH_ATTRIBUTE) return false
+        val annotation = pair.parent?.parent as? PsiAnnotation ?: return false
+        if (annotation.nameReferenceElement?.referenceName != RouteFileScanner.ROUTE_SHORT_NAME) return false
+        return annotation.qualifiedName == NavigationHelper.ROUTE_ANNOTATION_NAME
+    }
+
+    companion object {
+        private const val WITH_PREFIX = "with"
+    }
+}
+
+/**
+ * 路径字符串到目标类的引用，同一路径可能有多个目标
+ */
+class RoutePathReference(element: PsiElement, val path: String) :
+    PsiPolyVariantReferenceBase<PsiElement>(element, valueRange(element), true) {
+
+    override fun multiResolve(incompleteCode: Boolean): Array<ResolveResult> {
+        return ResolveCache.getInstance(element.project).resolveWithCaching(this, RESOLVER, false, incompleteCode)
+    }
+
+    // 目标类改名或移动时路径不变，字面量保持原样
+    override fun handleElementRename(newElementName: String): PsiElement = element
+
+    override fun bindToElement(element: PsiElement): PsiElement = this.element
+
+    companion object {
+
+        private val RESOLVER = ResolveCache.PolyVariantResolver<RoutePathReference> { reference, _ ->
+            RouteIndex.getInstance(reference.element.project).findTargets(reference.path)
+                .map { PsiElementResolveResult(it) }
+                .toTypedArray()
+        }
+
+        private fun valueRange(element: PsiElement): TextRange = ElementManipulators.getValueTextRange(element)
+    }
+}
+
+/**
+ * withXxx("key", ...) 的 key 到目标类 @Autowired 字段的引用
+ */
+class RouteExtraReference(element: PsiElement, val key: String) :
+    PsiPolyVariantReferenceBase<PsiElement>(element, ElementManipulators.getValueTextRange(element), true) {
+
+    override fun multiResolve(incompleteCode: Boolean): Array<ResolveResult> {
+        return ResolveCache.getInstance(element.project).resolveWithCaching(this, RESOLVER, false, incompleteCode)
+    }
+
+    override fun handleElementRename(newElementName: String): PsiElement = element
+
+    override fun bindToElement(element: PsiElement): PsiElement = this.element
+
+    companion object {
+
+        private val RESOLVER = ResolveCache.PolyVariantResolver<RouteExtraReference> { reference, _ ->
+            val call = AutowiredExtras.extraCallOf(reference.element) ?: return@PolyVariantResolver ResolveResult.EMPTY_ARRAY
+            AutowiredExtras.fieldsOf(call, reference.key)
+                .mapNotNull { AutowiredExtras.resolve(reference.element.project, it) }
+                .map { PsiElementResolveResult(it) }
+                .toTypedArray()
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.application.QueryExecutorBase
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiReference
+import com.intellij.psi.search.UsageSearchContext
+import com.intellij.psi.search.searches.ReferencesSearch
+import com.intellij.util.Processor
+import org.jetbrains.kotlin.psi.KtClassOrObject
+
+/**
+ * 搜 @Route 类的引用时，把路径字符串也当成一个词去搜。
+ *
+ * 平台默认只按类名查词索引，"/user/profile" 这种字面量不会被访问到，[RoutePathReference] 也就找不到；
+ * 这里按路径查词索引，只解析包含这个路径的字符串。
+ */
+class RouteReferenceSearcher : QueryExecutorBase<PsiReference, ReferencesSearch.SearchParameters>(true) {
+
+    override fun processQuery(queryParameters: ReferencesSearch.SearchParameters, consumer: Processor<in PsiReference>) {
+        val element = queryParameters.elementToSearch
+        if (element !is PsiClass && element !is KtClassOrObject) return
+        val path = RouteFileScanner.declaredPath(element) ?: return
+        queryParameters.optimizer.searchWord(path, queryParameters.effectiveSearchScope, UsageSearchContext.IN_STRINGS, true, element)
+    }
+}
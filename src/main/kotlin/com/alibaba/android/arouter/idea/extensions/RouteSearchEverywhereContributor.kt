@@ -0,0 +1,142 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.ide.actions.searcheverywhere.FoundItemDescriptor
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributor
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributorFactory
+import com.intellij.ide.actions.searcheverywhere.WeightedSearchEverywhereContributor
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.actionSystem.CommonDataKeys
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.intellij.ui.ColoredListCellRenderer
+import com.intellij.ui.SimpleTextAttributes
+import com.intellij.util.Processor
+import javax.swing.JList
+import javax.swing.ListCellRenderer
+
+/**
+ * Search Everywhere 里的 "Routes" 页：输入部分路径(如 /user/prof)跳到 @Route 的目标类。
+ *
+ * 匹配在预先转成小写的路径数组上做，不走 PSI；按块扫描，每块的结果带权重交给 UI，边找边显示。
+ * 路由表变化后第一次搜索要重建快照，放在可取消的 non-blocking read action 里，继续输入时直接放弃，不挡写操作。
+ */
+class RouteSearchEverywhereContributor(private val project: Project) : WeightedSearchEverywhereContributor<RouteTarget> {
+
+    override fun getSearchProviderId(): String = RouteSearchEverywhereContributor::class.java.simpleName
+
+    override fun getGroupName(): String = "Routes"
+
+    override fun getSortWeight(): Int = 800
+
+    override fun showInFindResults(): Boolean = false
+
+    override fun isShownInSeparateTab(): Boolean = true
+
+    override fun fetchWeightedElements(pattern: String, progressIndicator: ProgressIndicator, consumer: Processor<in FoundItemDescriptor<RouteTarget>>) {
+        if (pattern.isBlank() || DumbService.isDumb(project)) return
+        val model = ReadAction.nonBlocking<RouteSearchModel> { RouteSearchModel.getInstance(project) }
+            .inSmartMode(project)
+            .wrapProgress(progressIndicator)
+            .executeSynchronously()
+        val folded = pattern.trim().lowercase()
+
+        val chunk = ArrayList<FoundItemDescriptor<RouteTarget>>(CHUNK_SIZE)
+        var start = 0
+        while (start < model.size) {
+            progressIndicator.checkCanceled()
+            val end = minOf(start + CHUNK_SIZE, model.size)
+            for (i in start until end) {
+                val score = RouteSearchModel.score(model.folded[i], folded)
+                if (score >= 0) chunk.add(FoundItemDescriptor(model.targets[i], score))
+            }
+            chunk.sortByDescending { it.weight }
+            for (item in chunk) {
+                if (!consumer.process(item)) return
+            }
+            chunk.clear()
+            start = end
+        }
+    }
+
+    override fun processSelectedItem(selected: RouteTarget, modifiers: Int, searchText: String): Boolean {
+        RouteIndex.getInstance(project).resolve(selected)?.navigate(true)
+        return true
+    }
+
+    override fun getElementsRenderer(): ListCellRenderer<in RouteTarget> {
+        return object : ColoredListCellRenderer<RouteTarget>() {
+            override fun customizeCellRenderer(list: JList<out RouteTarget>, value: RouteTarget, index: Int, selected: Boolean, hasFocus: Boolean) {
+                icon = NavigationLineMarker.navigationOnIcon
+                append(value.path)
+                append("  " + value.className, SimpleTextAttributes.GRAYED_ATTRIBUTES)
+            }
+        }
+    }
+
+    override fun getDataForItem(element: RouteTarget, dataId: String): Any? = null
+
+    class Factory : SearchEverywhereContributorFactory<RouteTarget> {
+        override fun createContributor(initEvent: AnActionEvent): SearchEverywhereContributor<RouteTarget> {
+            return RouteSearchEverywhereContributor(initEvent.getRequiredData(CommonDataKeys.PROJECT))
+        }
+    }
+
+    companion object {
+        private const val CHUNK_SIZE = 512
+    }
+}
+
+/**
+ * 搜索用的路由快照：目标和小写路径一一对应，路由表变化后从 [RouteIndex.allTargets] 共用的快照重建
+ */
+class RouteSearchModel(val targets: Array<RouteTarget>, val folded: Array<String>) {
+
+    val size: Int
+        get() = targets.size
+
+    companion object {
+        private const val CHECK_INTERVAL = 1024
+
+        /**
+         * 需要在可取消的 read action 里调用
+         */
+        fun getInstance(project: Project): RouteSearchModel {
+            val index = RouteIndex.getInstance(project)
+            return CachedValuesManager.getManager(project).getCachedValue(project) {
+                val targets = index.allTargets().distinct().toTypedArray()
+                val folded = Array(targets.size) {
+                    if (it % CHECK_INTERVAL == 0) ProgressManager.checkCanceled()
+                    targets[it].path.lowercase()
+                }
+                CachedValueProvider.Result.create(RouteSearchModel(targets, folded), index)
+            }
+        }
+
+        /**
+         * 子序列模糊匹配，不匹配返回 -1；连续命中、路径段开头命中、整段包含加分，越短越靠前
+         */
+        fun score(candidate: String, pattern: String): Int {
+            var patternIndex = 0
+            var score = 0
+            var previous = -2
+            for (i in candidate.indices) {
+                if (patternIndex == pattern.length) break
+                if (candidate[i] != pattern[patternIndex]) continue
+                score += 1
+                if (i == previous + 1) score += 5
+                if (i == 0 || candidate[i - 1] == '/' || candidate[i - 1] == '_' || candidate[i - 1] == '-') score += 8
+                previous = i
+                patternIndex++
+            }
+            if (patternIndex < pattern.length) return -1
+            if (candidate.contains(pattern)) score += 20
+            if (candidate.startsWith(pattern)) score += 20
+            return maxOf(0, score * 100 - candidate.length)
+        }
+    }
+}
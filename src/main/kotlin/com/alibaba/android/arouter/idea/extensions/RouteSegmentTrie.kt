@@ -0,0 +1,56 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.Project
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+
+/**
+ * 按路径段组织的路由树，给 [RoutePattern] 匹配用。
+ *
+ * 固定的段直接按 key 取子节点，只有通配的段才遍历这一层的子节点，不会扫一遍全部路由。
+ */
+class RouteSegmentTrie {
+
+    private val root = Node()
+
+    fun add(target: RouteTarget) {
+        var node = root
+        for (segment in RoutePattern.splitSegments(target.path)) {
+            node = node.children.getOrPut(segment) { Node() }
+        }
+        node.targets.add(target)
+    }
+
+    fun match(pattern: RoutePattern): List<RouteTarget> {
+        var frontier = listOf(root)
+        for (segment in pattern.segments) {
+            frontier = if (segment.isExact) {
+                frontier.mapNotNull { it.children[segment.text] }
+            } else {
+                frontier.flatMap { node -> node.children.filterKeys { segment.matches(it) }.values }
+            }
+            if (frontier.isEmpty()) return emptyList()
+        }
+        return frontier.flatMap { it.targets }
+    }
+
+    private class Node {
+        val children = HashMap<String, Node>(4)
+        val targets = ArrayList<RouteTarget>(0)
+    }
+
+    companion object {
+
+        /**
+         * 当前工程的路由树，路由表变化后重建，数据取自 [RouteIndex.allTargets] 共用的快照。需要在 read action 里调用。
+         */
+        fun getInstance(project: Project): RouteSegmentTrie {
+            val index = RouteIndex.getInstance(project)
+            return CachedValuesManager.getManager(project).getCachedValue(project) {
+                val trie = RouteSegmentTrie()
+                index.allTargets().forEach { trie.add(it) }
+                CachedValueProvider.Result.create(trie, index)
+            }
+        }
+    }
+}
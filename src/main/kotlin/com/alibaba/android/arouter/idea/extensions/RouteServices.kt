@@ -0,0 +1,114 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectRootManager
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiClassObjectAccessExpression
+import com.intellij.psi.PsiClassType
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiMethod
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.intellij.psi.util.InheritanceUtil
+import org.jetbrains.kotlin.asJava.toLightClass
+import org.jetbrains.kotlin.idea.references.mainReference
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtClassLiteralExpression
+import org.jetbrains.kotlin.psi.KtClassOrObject
+import org.jetbrains.kotlin.psi.KtDotQualifiedExpression
+import org.jetbrains.kotlin.psi.KtNameReferenceExpression
+import org.jetbrains.kotlin.psi.KtQualifiedExpression
+import org.jetbrains.kotlin.psi.KtReferenceExpression
+
+/**
+ * ARouter 的服务发现：ARouter.getInstance().navigation(XxxService.class) 找 @Route 标注的 IProvider 实现。
+ *
+ * 和 ARouter 的注解处理器一样，实现类直接实现的 IProvider 子接口作为 key，直接实现 IProvider 的用类名本身。
+ * 扫描 @Route 类时就把 key 算好记进 [RouteIndex]，依赖库的取 `ARouter$$Providers$$xxx`；
+ * 接口 -> 实现的表按工程缓存，跳转时只查表，不做继承搜索。
+ */
+object RouteServices {
+
+    const val PROVIDER_INTERFACE_NAME = "com.alibaba.android.arouter.facade.template.IProvider"
+    const val NAVIGATION_METHOD = "navigation"
+
+    /**
+     * 服务的 key，不是 IProvider 实现时为空
+     */
+    fun serviceKeys(psiClass: PsiClass, className: String): List<String> {
+        return psiClass.interfaces.mapNotNull { superInterface ->
+            when {
+                superInterface.qualifiedName == PROVIDER_INTERFACE_NAME -> className
+                InheritanceUtil.isInheritor(superInterface, PROVIDER_INTERFACE_NAME) -> superInterface.qualifiedName
+                else -> null
+            }
+        }.distinct()
+    }
+
+    fun serviceKeys(ktClass: KtClassOrObject, className: String): List<String> {
+        return ktClass.toLightClass()?.let { serviceKeys(it, className) }.orEmpty()
+    }
+
+    /**
+     * call 是 ARouter 的 navigation(Xxx.class) 时返回服务接口的全名
+     */
+    fun serviceClassOf(call: PsiElement): String? {
+        return when (call) {
+            is PsiMethodCallExpression -> {
+                if (call.methodExpression.referenceName != NAVIGATION_METHOD) return null
+                val argument = call.argumentList.expressions.singleOrNull() as? PsiClassObjectAccessExpression ?: return null
+                if (!isARouterMethod(call.resolveMethod())) return null
+                (argument.operand.type as? PsiClassType)?.resolve()?.qualifiedName
+            }
+            is KtCallExpression -> {
+                val callee = call.calleeExpression as? KtNameReferenceExpression ?: return null
+                if (callee.getReferencedName() != NAVIGATION_METHOD) return null
+                // Xxx::class.java
+                val argument = call.valueArguments.singleOrNull()?.getArgumentExpression() as? KtDotQualifiedExpression ?: return null
+                val literal = argument.receiverExpression as? KtClassLiteralExpression ?: return null
+                if (!isARouterMethod(callee.mainReference.resolve() as? PsiMethod)) return null
+                val reference = when (val receiver = literal.receiverExpression) {
+                    is KtQualifiedExpression -> receiver.selectorExpression
+                    else -> receiver
+                } as? KtReferenceExpression ?: return null
+                when (val declaration = reference.mainReference.resolve()) {
+                    is PsiClass -> declaration.qualifiedName
+                    is KtClassOrObject -> declaration.fqName?.asString()
+                    else -> null
+                }
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * 服务接口的实现，源码和依赖库都算。需要在 read action 里调用。
+     */
+    fun providers(project: Project, serviceName: String): List<ProviderTarget> = serviceMap(project)[serviceName].orEmpty()
+
+    fun findProviders(project: Project, serviceName: String): List<PsiClass> {
+        val index = RouteIndex.getInstance(project)
+        return providers(project, serviceName).mapNotNull { index.resolve(it.className, it.fileUrl) }.distinct()
+    }
+
+    /**
+     * 服务 key -> 实现，路由表或依赖变化后重建
+     */
+    fun serviceMap(project: Project): Map<String, List<ProviderTarget>> {
+        val index = RouteIndex.getInstance(project)
+        return CachedValuesManager.getManager(project).getCachedValue(project) {
+            CachedValueProvider.Result.create(index.allProviders().groupBy { it.serviceName }, index, ProjectRootManager.getInstance(project))
+        }
+    }
+
+    private fun isARouterMethod(method: PsiMethod?): Boolean {
+        method ?: return false
+        return method.name == NAVIGATION_METHOD && NavigationHelper.isClassOfARouter(method.containingClass)
+    }
+}
+
+/**
+ * 源码里一个 @Route 服务实现：serviceName 是服务 key，offset 是类名的位置
+ */
+data class RouteProvider(val serviceName: String, val className: String, val offset: Int)
@@ -0,0 +1,72 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.startup.StartupActivity
+import com.intellij.psi.JavaPsiFacade
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.psi.search.searches.AnnotatedMembersSearch
+import com.intellij.util.concurrency.AppExecutorUtil
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * 工程打开时读取上次保存的路由表，进入 smart mode 后在后台校验有变化的文件；
+ * 如果正在建索引，先在后台准备文本扫描的临时表。
+ *
+ * 路由表第一次在后台更新完([RouteIndexListener.updateFinished])后顺带预热：ARouter 相关类的查找、第一次 AnnotatedMembersSearch、
+ * 补全和匹配用的路由树、拦截器链和服务表，这样工程打开后第一次点 gutter 和之后一样快。
+ * 预热不自己调 verify，整个放在一个 non-blocking read action 里，遇到写操作就整体重来，已经算好的缓存不会重算。
+ */
+class RouteStartupActivity : StartupActivity.Background {
+
+    override fun runActivity(project: Project) {
+        val index = RouteIndex.getInstance(project)
+        index.loadPersisted()
+        if (DumbService.isDumb(project)) {
+            index.scheduleProvisionalScan()
+        }
+
+        val warmedUp = AtomicBoolean()
+        val connection = project.messageBus.connect(index)
+        connection.subscribe(RouteIndex.TOPIC, object : RouteIndexListener {
+            override fun updateFinished() {
+                if (!warmedUp.compareAndSet(false, true)) return
+                connection.disconnect()
+                warmUp(project, index)
+            }
+        })
+        index.scheduleUpdate()
+    }
+
+    private fun warmUp(project: Project, index: RouteIndex) {
+        ReadAction.nonBlocking<Unit> {
+            warmClassLookups(project)
+            RoutePathTrie.getInstance(project)
+            RouteSegmentTrie.getInstance(project)
+            RouteInterceptors.chain(project)
+            RouteServices.serviceMap(project)
+        }
+            .inSmartMode(project)
+            .expireWith(index)
+            .submit(AppExecutorUtil.getAppExecutorService())
+    }
+
+    /**
+     * JavaPsiFacade.findClass 和注解搜索第一次用时要加载 stub 索引，这里先走一遍
+     */
+    private fun warmClassLookups(project: Project) {
+        val facade = JavaPsiFacade.getInstance(project)
+        val allScope = GlobalSearchScope.allScope(project)
+        listOf(
+            NavigationHelper.ROUTER_FULL_NAME,
+            AutowiredExtras.AUTOWIRED_ANNOTATION_NAME,
+            RouteInterceptors.INTERCEPTOR_ANNOTATION_NAME,
+            RouteServices.PROVIDER_INTERFACE_NAME
+        ).forEach { facade.findClass(it, allScope) }
+        facade.findClass(NavigationHelper.ROUTE_ANNOTATION_NAME, allScope)?.let {
+            AnnotatedMembersSearch.search(it, GlobalSearchScope.projectScope(project)).findFirst()
+        }
+        NavigationHelper.warmUp(project)
+    }
+}
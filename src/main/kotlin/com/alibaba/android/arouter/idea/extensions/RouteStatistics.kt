@@ -0,0 +1,134 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.ProjectTopics
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ModuleRootEvent
+import com.intellij.openapi.roots.ModuleRootListener
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.vfs.VirtualFileManager
+
+/**
+ * 路由统计：每个 group/模块的路由数、每个路径的调用数(fan-in)、每个模块调用了多少个路由(fan-out)。
+ *
+ * 监听 [RouteIndex.TOPIC]，文件重新扫描时只按新旧内容的差值加减计数；
+ * 整表替换或模块结构变化后标记为过期，下次取数据时从路由表完整算一遍。只统计工程源码。
+ * 完整计算时记下路由表的版本，版本不比它新的变化事件已经算进去了，不再重复加减。
+ */
+class RouteStatistics(private val project: Project) : Disposable {
+
+    private val routesByGroup = HashMap<String, Int>()
+    private val callsByGroup = HashMap<String, Int>()
+    private val routesByModule = HashMap<String, Int>()
+    // 模块 -> 路径 -> 调用次数
+    private val callsByModule = HashMap<String, HashMap<String, Int>>()
+    private val callsByPath = HashMap<String, Int>()
+    private val moduleByFile = HashMap<String, String>()
+
+    private var stale = true
+    // 已经计入统计的路由表版本
+    private var version = -1L
+
+    init {
+        val connection = project.messageBus.connect(this)
+        connection.subscribe(RouteIndex.TOPIC, object : RouteIndexListener {
+            override fun routesChanged(fileUrl: String, removed: FileEntries, added: FileEntries, version: Long) {
+                synchronized(this@RouteStatistics) {
+                    if (stale || version <= this@RouteStatistics.version) return
+                    apply(removed, -1)
+                    apply(added, 1)
+                    if (added.isEmpty) moduleByFile.remove(fileUrl)
+                    this@RouteStatistics.version = version
+                }
+            }
+
+            override fun routesReset() = markStale()
+        })
+        connection.subscribe(ProjectTopics.PROJECT_ROOTS, object : ModuleRootListener {
+            override fun rootsChanged(event: ModuleRootEvent) = markStale()
+        })
+    }
+
+    /**
+     * 当前统计的快照，会先把路由表更新到最新，需要在后台的 read action 里调用
+     */
+    fun snapshot(): Snapshot {
+        val index = RouteIndex.getInstance(project)
+        index.verify()
+        synchronized(this) {
+            if (stale) recompute(index)
+            return Snapshot(
+                (routesByGroup.keys + callsByGroup.keys).map { GroupRow(it, routesByGroup[it] ?: 0, callsByGroup[it] ?: 0) },
+                (routesByModule.keys + callsByModule.keys).map { module ->
+                    val called = callsByModule[module]
+                    ModuleRow(module, routesByModule[module] ?: 0, called?.size ?: 0, called?.values?.sum() ?: 0)
+                },
+                callsByPath.map { (path, count) -> PathRow(path, count) }
+            )
+        }
+    }
+
+    private fun recompute(index: RouteIndex) {
+        routesByGroup.clear()
+        callsByGroup.clear()
+        routesByModule.clear()
+        callsByModule.clear()
+        callsByPath.clear()
+        moduleByFile.clear()
+        val (tableVersion, entries) = index.sourceEntries()
+        apply(entries, 1)
+        version = tableVersion
+        stale = false
+    }
+
+    private fun apply(entries: FileEntries, delta: Int) {
+        for (target in entries.targets) {
+            add(routesByGroup, RouteTable.groupOf(target.path), delta)
+            add(routesByModule, moduleOf(target.fileUrl ?: continue), delta)
+        }
+        for (site in entries.calls) {
+            add(callsByGroup, RouteTable.groupOf(site.path), delta)
+            add(callsByPath, site.path, delta)
+            val module = moduleOf(site.fileUrl)
+            val paths = callsByModule.getOrPut(module) { HashMap() }
+            add(paths, site.path, delta)
+            if (paths.isEmpty()) callsByModule.remove(module)
+        }
+    }
+
+    private fun add(counts: HashMap<String, Int>, key: String, delta: Int) {
+        val value = (counts[key] ?: 0) + delta
+        if (value <= 0) counts.remove(key) else counts[key] = value
+    }
+
+    private fun moduleOf(fileUrl: String): String {
+        return moduleByFile.getOrPut(fileUrl) {
+            val file = VirtualFileManager.getInstance().findFileByUrl(fileUrl)
+            file?.let { ProjectFileIndex.getInstance(project).getModuleForFile(it)?.name } ?: NO_MODULE
+        }
+    }
+
+    @Synchronized
+    private fun markStale() {
+        stale = true
+    }
+
+    override fun dispose() {}
+
+    class Snapshot(val groups: List<GroupRow>, val modules: List<ModuleRow>, val paths: List<PathRow>)
+
+    data class GroupRow(val group: String, val routes: Int, val calls: Int)
+
+    /**
+     * invokedRoutes 是这个模块调用过的不同路径数(fan-out)，calls 是调用点总数
+     */
+    data class ModuleRow(val module: String, val routes: Int, val invokedRoutes: Int, val calls: Int)
+
+    data class PathRow(val path: String, val calls: Int)
+
+    companion object {
+        private const val NO_MODULE = "<no module>"
+
+        fun getInstance(project: Project): RouteStatistics = project.getService(RouteStatistics::class.java)
+    }
+}
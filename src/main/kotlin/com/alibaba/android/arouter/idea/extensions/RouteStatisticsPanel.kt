@@ -0,0 +1,106 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.icons.AllIcons
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.actionSystem.ActionManager
+import com.intellij.openapi.actionSystem.ActionUpdateThread
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.actionSystem.DefaultActionGroup
+import com.intellij.openapi.application.ModalityState
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.project.DumbAwareAction
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.ui.SimpleToolWindowPanel
+import com.intellij.ui.ScrollPaneFactory
+import com.intellij.ui.components.JBTabbedPane
+import com.intellij.ui.table.TableView
+import com.intellij.util.concurrency.AppExecutorUtil
+import com.intellij.util.ui.ColumnInfo
+import com.intellij.util.ui.ListTableModel
+import javax.swing.SortOrder
+
+/**
+ * ARouter 工具窗口的 "Statistics" 页：按 group、按模块、按路径三张表。
+ *
+ * 数据来自增量维护的 [RouteStatistics]；表格只渲染可见行，10k 路由、100k 调用点也不卡。
+ */
+class RouteStatisticsPanel(private val project: Project) : SimpleToolWindowPanel(true, true), Disposable {
+
+    private val groupModel = ListTableModel<RouteStatistics.GroupRow>(
+        arrayOf<ColumnInfo<*, *>>(
+            column<RouteStatistics.GroupRow>("Group") { it.group },
+            countColumn<RouteStatistics.GroupRow>("Routes") { it.routes },
+            countColumn<RouteStatistics.GroupRow>("Call sites") { it.calls }
+        ),
+        ArrayList(), 1, SortOrder.DESCENDING
+    )
+    private val moduleModel = ListTableModel<RouteStatistics.ModuleRow>(
+        arrayOf<ColumnInfo<*, *>>(
+            column<RouteStatistics.ModuleRow>("Module") { it.module },
+            countColumn<RouteStatistics.ModuleRow>("Routes declared") { it.routes },
+            countColumn<RouteStatistics.ModuleRow>("Routes invoked") { it.invokedRoutes },
+            countColumn<RouteStatistics.ModuleRow>("Call sites") { it.calls }
+        ),
+        ArrayList(), 2, SortOrder.DESCENDING
+    )
+    private val pathModel = ListTableModel<RouteStatistics.PathRow>(
+        arrayOf<ColumnInfo<*, *>>(
+            column<RouteStatistics.PathRow>("Path") { it.path },
+            countColumn<RouteStatistics.PathRow>("Call sites") { it.calls }
+        ),
+        ArrayList(), 1, SortOrder.DESCENDING
+    )
+
+    init {
+        val tabs = JBTabbedPane()
+        tabs.addTab("Groups", ScrollPaneFactory.createScrollPane(TableView(groupModel)))
+        tabs.addTab("Modules", ScrollPaneFactory.createScrollPane(TableView(moduleModel)))
+        tabs.addTab("Most navigated", ScrollPaneFactory.createScrollPane(TableView(pathModel)))
+
+        val actions = DefaultActionGroup(object : DumbAwareAction("Refresh", "Update route statistics", AllIcons.Actions.Refresh) {
+            override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.EDT
+
+            override fun actionPerformed(e: AnActionEvent) = refresh()
+        })
+        val toolbar = ActionManager.getInstance().createActionToolbar(TITLE, actions, true)
+        toolbar.targetComponent = this
+        setToolbar(toolbar.component)
+        setContent(tabs)
+    }
+
+    fun refresh() {
+        ReadAction.nonBlocking<RouteStatistics.Snapshot> { RouteStatistics.getInstance(project).snapshot() }
+            .inSmartMode(project)
+            .expireWith(this)
+            .finishOnUiThread(ModalityState.defaultModalityState()) { snapshot ->
+                groupModel.items = snapshot.groups
+                moduleModel.items = snapshot.modules
+                pathModel.items = snapshot.paths
+            }
+            .submit(AppExecutorUtil.getAppExecutorService())
+    }
+
+    override fun dispose() {}
+
+    companion object {
+        const val TITLE = "Statistics"
+
+        private fun <T> column(name: String, value: (T) -> String): ColumnInfo<T, String> {
+            return object : ColumnInfo<T, String>(name) {
+                override fun valueOf(item: T): String = value(item)
+
+                override fun getComparator(): Comparator<T> = compareBy(value)
+            }
+        }
+
+        private fun <T> countColumn(name: String, value: (T) -> Int): ColumnInfo<T, Int> {
+            return object : ColumnInfo<T, Int>(name) {
+                override fun valueOf(item: T): Int = value(item)
+
+                override fun getColumnClass(): Class<*> = Int::class.javaObjectType
+
+                override fun getComparator(): Comparator<T> = compareBy(value)
+            }
+        }
+    }
+}
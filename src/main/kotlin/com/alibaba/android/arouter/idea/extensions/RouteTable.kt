@@ -0,0 +1,734 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.util.io.DataInputOutputUtil
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInput
+import java.io.DataInputStream
+import java.io.DataOutput
+import java.io.DataOutputStream
+
+/**
+ * 源码路由的内存表，和 ARouter 一样按 group(路径第一段) 分片。
+ *
+ * 字符串(path、类名、文件 url)统一放进 [StringPool]，分片里只存 int 下标和 offset，
+ * 不持有 PSI/VirtualFile；从磁盘读回来的分片先保留原始字节，第一次查到这个 group 时才解码。
+ * 所有方法都是同步的，单次查询只碰一个分片。
+ * 删掉的路由、输入过程中的中间路径会在字符串表里留下没人用的字符串，超过一半时整理一次，落盘前也整理。
+ */
+class RouteTable {
+
+    private var strings = StringPool()
+    // 字符串表超过这个大小时整理
+    private var compactThreshold = MIN_COMPACT_SIZE
+    private val shards = HashMap<Int, GroupShard>()
+    // fileId -> 文件的时间戳和它涉及的 group
+    private val files = HashMap<Int, FileInfo>()
+    // fileId -> 文件里 @Route 类的 @Autowired 字段，每条 [class, key, type, offset]
+    private val extras = FileRecords(EXTRA_STRIDE)
+    // classId -> 声明 @Autowired 字段的文件
+    private val extraFiles = HashMap<Int, Int>()
+    // fileId -> 文件里的 IProvider 服务实现，每条 [service, class, offset]
+    private val providers = FileRecords(PROVIDER_STRIDE)
+    // fileId -> 文件里继承了工程源码中父类的 @Route 类，每条 [class]；父类里的 @Autowired 字段没有记录
+    private val inheritingClasses = FileRecords(1)
+    // classId -> 记录它继承源码父类的文件
+    private val inheritingFiles = HashMap<Int, Int>()
+    // fileId -> 文件里动态路径的 build 调用，每条 [pattern, offset]
+    private val patternCalls = FileRecords(PATTERN_STRIDE)
+    // 全部 @Interceptor，始终按执行顺序(priority, 类名)排好，增加时二分插入
+    private val interceptors = ArrayList<InterceptorEntry>()
+    private val interceptorOrder = compareBy<InterceptorEntry>({ it.priority }, { strings[it.classId] })
+
+    // 内容每变一次加一，和数据在同一把锁下修改
+    @Volatile
+    var version = 0L
+        private set
+
+    /**
+     * 换掉一个文件的内容，返回内容(不算 offset)是否有变化
+     */
+    @Synchronized
+    fun replaceFile(entry: FileRoutes): Boolean {
+        // 没有内容又不在表里的文件(绝大多数源码文件)不记它的 url
+        val fileId = (if (entry.isEmpty) strings.find(entry.file.url) else strings.intern(entry.file.url)) ?: return false
+        val before = contentOf(fileId)
+        removeFile(fileId)
+        if (!entry.isEmpty) addFile(fileId, entry)
+        val changed = contentOf(fileId) != before
+        if (changed) version++
+        compactIfNeeded()
+        return changed
+    }
+
+    private fun addFile(fileId: Int, entry: FileRoutes) {
+        val groups = LinkedHashSet<Int>()
+        for (route in entry.routes) {
+            val groupId = strings.intern(groupOf(route.path))
+            groups.add(groupId)
+            shard(groupId).addRoute(strings.intern(route.path), strings.intern(route.className), fileId, route.offset)
+        }
+        for (call in entry.calls) {
+            val groupId = strings.intern(groupOf(call.path))
+            groups.add(groupId)
+            shard(groupId).addCall(strings.intern(call.path), fileId, call.offset)
+        }
+        if (entry.extras.isNotEmpty()) {
+            val records = IntArray(entry.extras.size * EXTRA_STRIDE)
+            entry.extras.forEachIndexed { i, extra ->
+                val classId = strings.intern(extra.className)
+                records[i * EXTRA_STRIDE] = classId
+                records[i * EXTRA_STRIDE + 1] = strings.intern(extra.key)
+                records[i * EXTRA_STRIDE + 2] = strings.intern(extra.type)
+                records[i * EXTRA_STRIDE + 3] = extra.offset
+                extraFiles[classId] = fileId
+            }
+            extras[fileId] = records
+        }
+        if (entry.providers.isNotEmpty()) {
+            val records = IntArray(entry.providers.size * PROVIDER_STRIDE)
+            entry.providers.forEachIndexed { i, provider ->
+                records[i * PROVIDER_STRIDE] = strings.intern(provider.serviceName)
+                records[i * PROVIDER_STRIDE + 1] = strings.intern(provider.className)
+                records[i * PROVIDER_STRIDE + 2] = provider.offset
+            }
+            providers[fileId] = records
+        }
+        if (entry.inheritingClasses.isNotEmpty()) {
+            val records = IntArray(entry.inheritingClasses.size) { strings.intern(entry.inheritingClasses[it]) }
+            records.forEach { inheritingFiles[it] = fileId }
+            inheritingClasses[fileId] = records
+        }
+        if (entry.patternCalls.isNotEmpty()) {
+            val records = IntArray(entry.patternCalls.size * PATTERN_STRIDE)
+            entry.patternCalls.forEachIndexed { i, call ->
+                records[i * PATTERN_STRIDE] = strings.intern(call.path)
+                records[i * PATTERN_STRIDE + 1] = call.offset
+            }
+            patternCalls[fileId] = records
+        }
+        for (interceptor in entry.interceptors) {
+            val record = InterceptorEntry(interceptor.priority, strings.intern(interceptor.className), strings.intern(interceptor.name), fileId, interceptor.offset)
+            val position = interceptors.binarySearch(record, interceptorOrder)
+            interceptors.add(if (position < 0) -position - 1 else position, record)
+        }
+        files[fileId] = FileInfo(entry.timeStamp, entry.length, groups.toIntArray())
+    }
+
+    /**
+     * 返回表里是否有过这个文件的内容
+     */
+    @Synchronized
+    fun removeFile(url: String): Boolean {
+        val fileId = strings.find(url) ?: return false
+        val changed = contentOf(fileId).isNotEmpty()
+        removeFile(fileId)
+        if (changed) version++
+        compactIfNeeded()
+        return changed
+    }
+
+    @Synchronized
+    fun containsFile(url: String): Boolean {
+        val fileId = strings.find(url) ?: return false
+        return files.containsKey(fileId)
+    }
+
+    @Synchronized
+    fun fileStamps(): List<FileStamp> {
+        return files.map { (fileId, info) -> FileStamp(strings[fileId], info.timeStamp, info.length) }
+    }
+
+    /**
+     * 一个文件当前在表里的路由和调用，只看它涉及的 group
+     */
+    @Synchronized
+    fun fileEntries(url: String): FileEntries {
+        val fileId = strings.find(url) ?: return FileEntries.EMPTY
+        val info = files[fileId] ?: return FileEntries.EMPTY
+        val targets = ArrayList<RouteTarget>(0)
+        val calls = ArrayList<RouteSite>(0)
+        for (groupId in info.groups) {
+            val shard = shards[groupId] ?: continue
+            shard.forEachRoute { pathId, classId, routeFile, offset ->
+                if (routeFile == fileId) targets.add(RouteTarget(strings[pathId], strings[classId], url, offset))
+            }
+            shard.forEachCall { pathId, callFile, offset ->
+                if (callFile == fileId) calls.add(RouteSite(strings[pathId], url, offset))
+            }
+        }
+        return FileEntries(targets, calls)
+    }
+
+    @Synchronized
+    fun targets(path: String): List<RouteTarget> {
+        val pathId = strings.find(path) ?: return emptyList()
+        val shard = shards[strings.find(groupOf(path)) ?: return emptyList()] ?: return emptyList()
+        val result = ArrayList<RouteTarget>(1)
+        shard.forEachRoute { routePath, classId, fileId, offset ->
+            if (routePath == pathId) {
+                result.add(RouteTarget(path, strings[classId], strings[fileId], offset))
+            }
+        }
+        return result
+    }
+
+    @Synchronized
+    fun callSites(path: String): List<RouteSite> {
+        val pathId = strings.find(path) ?: return emptyList()
+        val shard = shards[strings.find(groupOf(path)) ?: return emptyList()] ?: return emptyList()
+        val result = ArrayList<RouteSite>()
+        shard.forEachCall { callPath, fileId, offset ->
+            if (callPath == pathId) {
+                result.add(RouteSite(path, strings[fileId], offset))
+            }
+        }
+        return result
+    }
+
+    /**
+     * 路由类的 @Autowired 字段，只查声明这个类的那个文件
+     */
+    @Synchronized
+    fun autowiredFields(className: String): List<AutowiredField> {
+        val classId = strings.find(className) ?: return emptyList()
+        val fileId = extraFiles[classId] ?: return emptyList()
+        val records = extras[fileId] ?: return emptyList()
+        val result = ArrayList<AutowiredField>()
+        for (i in records.indices step EXTRA_STRIDE) {
+            if (records[i] != classId) continue
+            result.add(AutowiredField(className, strings[records[i + 1]], strings[records[i + 2]], strings[fileId], records[i + 3]))
+        }
+        return result
+    }
+
+    /**
+     * 源码里的拦截器，已经按执行顺序排好
+     */
+    @Synchronized
+    fun interceptors(): List<InterceptorTarget> {
+        return interceptors.map { InterceptorTarget(strings[it.classId], it.priority, strings[it.nameId], strings[it.fileId], it.offset) }
+    }
+
+    /**
+     * 路由类是否继承了工程源码里的类，扫描时记下的
+     */
+    @Synchronized
+    fun inheritsSourceClass(className: String): Boolean {
+        val classId = strings.find(className) ?: return false
+        return inheritingFiles.containsKey(classId)
+    }
+
+    @Synchronized
+    fun allProviders(): List<ProviderTarget> {
+        val result = ArrayList<ProviderTarget>()
+        providers.forEach { fileId, records ->
+            for (i in records.indices step PROVIDER_STRIDE) {
+                result.add(ProviderTarget(strings[records[i]], strings[records[i + 1]], strings[fileId], records[i + 2]))
+            }
+        }
+        return result
+    }
+
+    @Synchronized
+    fun allTargets(): List<RouteTarget> {
+        val result = ArrayList<RouteTarget>()
+        for (shard in shards.values) {
+            shard.forEachRoute { pathId, classId, fileId, offset ->
+                result.add(RouteTarget(strings[pathId], strings[classId], strings[fileId], offset))
+            }
+        }
+        return result
+    }
+
+    @Synchronized
+    fun allCallSites(): List<RouteSite> {
+        val result = ArrayList<RouteSite>()
+        for (shard in shards.values) {
+            shard.forEachCall { pathId, fileId, offset ->
+                result.add(RouteSite(strings[pathId], strings[fileId], offset))
+            }
+        }
+        return result
+    }
+
+    /**
+     * 全部路由和调用，连同取数据时的 [version]，两者一致
+     */
+    @Synchronized
+    fun allEntries(): Pair<Long, FileEntries> = version to FileEntries(allTargets(), allCallSites())
+
+    @Synchronized
+    fun allPatternCalls(): List<RouteSite> {
+        val result = ArrayList<RouteSite>()
+        patternCalls.forEach { fileId, records ->
+            for (i in records.indices step PATTERN_STRIDE) result.add(RouteSite(strings[records[i]], strings[fileId], records[i + 1]))
+        }
+        return result
+    }
+
+    @Synchronized
+    fun clear() {
+        shards.clear()
+        files.clear()
+        extras.clear()
+        extraFiles.clear()
+        providers.clear()
+        inheritingClasses.clear()
+        inheritingFiles.clear()
+        patternCalls.clear()
+        interceptors.clear()
+        strings.clear()
+        compactThreshold = MIN_COMPACT_SIZE
+        version++
+    }
+
+    private fun removeFile(fileId: Int) {
+        extras.remove(fileId)?.let { records ->
+            for (i in records.indices step EXTRA_STRIDE) extraFiles.remove(records[i], fileId)
+        }
+        providers.remove(fileId)
+        inheritingClasses.remove(fileId)?.forEach { inheritingFiles.remove(it, fileId) }
+        patternCalls.remove(fileId)
+        interceptors.removeIf { it.fileId == fileId }
+        val info = files.remove(fileId) ?: return
+        for (groupId in info.groups) {
+            val shard = shards[groupId] ?: continue
+            shard.removeFile(fileId)
+            if (shard.isEmpty) shards.remove(groupId)
+        }
+    }
+
+    /**
+     * 文件在表里的全部记录，不含 offset，[类别, 下标...] -> 条数；只用来比较重新扫描前后是否一样
+     */
+    private fun contentOf(fileId: Int): Map<List<Int>, Int> {
+        val content = HashMap<List<Int>, Int>()
+        fun add(vararg values: Int) {
+            content.merge(values.asList(), 1) { a, b -> a + b }
+        }
+        files[fileId]?.groups?.forEach { groupId ->
+            val shard = shards[groupId] ?: return@forEach
+            shard.forEachRoute { pathId, classId, routeFile, _ -> if (routeFile == fileId) add(ROUTE_RECORD, pathId, classId) }
+            shard.forEachCall { pathId, callFile, _ -> if (callFile == fileId) add(CALL_RECORD, pathId) }
+        }
+        extras[fileId]?.let { records ->
+            for (i in records.indices step EXTRA_STRIDE) add(EXTRA_RECORD, records[i], records[i + 1], records[i + 2])
+        }
+        providers[fileId]?.let { records ->
+            for (i in records.indices step PROVIDER_STRIDE) add(PROVIDER_RECORD, records[i], records[i + 1])
+        }
+        patternCalls[fileId]?.let { records ->
+            for (i in records.indices step PATTERN_STRIDE) add(PATTERN_RECORD, records[i])
+        }
+        inheritingClasses[fileId]?.forEach { add(INHERITING_RECORD, it) }
+        interceptors.forEach { if (it.fileId == fileId) add(INTERCEPTOR_RECORD, it.priority, it.classId, it.nameId) }
+        return content
+    }
+
+    private fun compactIfNeeded() {
+        if (strings.size > compactThreshold) compact()
+    }
+
+    /**
+     * 只保留还有记录引用的字符串，重新编号；从磁盘读回来还没解码的分片解码、改完再编码回去
+     */
+    private fun compact() {
+        val pool = StringPool()
+        val mapping = IntArray(strings.size) { -1 }
+        val remap = { id: Int ->
+            if (mapping[id] < 0) mapping[id] = pool.intern(strings[id])
+            mapping[id]
+        }
+
+        val oldFiles = HashMap(files)
+        files.clear()
+        for ((fileId, info) in oldFiles) {
+            files[remap(fileId)] = FileInfo(info.timeStamp, info.length, IntArray(info.groups.size) { remap(info.groups[it]) })
+        }
+        val oldShards = HashMap(shards)
+        shards.clear()
+        for ((groupId, shard) in oldShards) {
+            shard.remap(remap)
+            shards[remap(groupId)] = shard
+        }
+        extras.remap(remap, EXTRA_STRIDE - 1)
+        extraFiles.clear()
+        extras.forEach { fileId, records ->
+            for (i in records.indices step EXTRA_STRIDE) extraFiles[records[i]] = fileId
+        }
+        providers.remap(remap, PROVIDER_STRIDE - 1)
+        inheritingClasses.remap(remap, 1)
+        inheritingFiles.clear()
+        inheritingClasses.forEach { fileId, records -> records.forEach { inheritingFiles[it] = fileId } }
+        patternCalls.remap(remap, PATTERN_STRIDE - 1)
+        interceptors.replaceAll { InterceptorEntry(it.priority, remap(it.classId), remap(it.nameId), remap(it.fileId), it.offset) }
+
+        strings = pool
+        compactThreshold = maxOf(MIN_COMPACT_SIZE, pool.size * 2)
+    }
+
+    private fun shard(groupId: Int): GroupShard = shards.getOrPut(groupId) { GroupShard(null) }
+
+    @Synchronized
+    fun write(out: DataOutput) {
+        compact()
+        DataInputOutputUtil.writeINT(out, strings.size)
+        for (i in 0 until strings.size) {
+            out.writeUTF(strings[i])
+        }
+        DataInputOutputUtil.writeINT(out, files.size)
+        for ((fileId, info) in files) {
+            DataInputOutputUtil.writeINT(out, fileId)
+            out.writeLong(info.timeStamp)
+            out.writeLong(info.length)
+            DataInputOutputUtil.writeINT(out, info.groups.size)
+            info.groups.forEach { DataInputOutputUtil.writeINT(out, it) }
+        }
+        DataInputOutputUtil.writeINT(out, shards.size)
+        for ((groupId, shard) in shards) {
+            DataInputOutputUtil.writeINT(out, groupId)
+            val bytes = shard.toBytes()
+            DataInputOutputUtil.writeINT(out, bytes.size)
+            out.write(bytes)
+        }
+        extras.write(out)
+        providers.write(out)
+        inheritingClasses.write(out)
+        patternCalls.write(out)
+        DataInputOutputUtil.writeINT(out, interceptors.size)
+        for (interceptor in interceptors) {
+            out.writeInt(interceptor.priority)
+            DataInputOutputUtil.writeINT(out, interceptor.classId)
+            DataInputOutputUtil.writeINT(out, interceptor.nameId)
+            DataInputOutputUtil.writeINT(out, interceptor.fileId)
+            DataInputOutputUtil.writeINT(out, interceptor.offset)
+        }
+    }
+
+    companion object {
+        private const val EXTRA_STRIDE = 4
+        private const val PROVIDER_STRIDE = 3
+        private const val PATTERN_STRIDE = 2
+        private const val MIN_COMPACT_SIZE = 4096
+
+        // contentOf 里区分记录的类别
+        private const val ROUTE_RECORD = 0
+        private const val CALL_RECORD = 1
+        private const val EXTRA_RECORD = 2
+        private const val PROVIDER_RECORD = 3
+        private const val INTERCEPTOR_RECORD = 4
+        private const val PATTERN_RECORD = 5
+        private const val INHERITING_RECORD = 6
+
+        /**
+         * ARouter 默认的分组：路径的第一段
+         */
+        fun groupOf(path: String): String = path.trimStart('/').substringBefore('/')
+
+        /**
+         * ARouter 要求路径形如 /group/name，至少两段
+         */
+        fun isValidPath(path: String): Boolean {
+            return path.startsWith("/") && path.indexOf('/', 1) > 1 && !path.endsWith("/") && path.none { it.isWhitespace() }
+        }
+
+        /**
+         * 分片只读出原始字节，用到时再解码
+         */
+        fun read(input: DataInput): RouteTable {
+            val table = RouteTable()
+            repeat(DataInputOutputUtil.readINT(input)) {
+                table.strings.intern(input.readUTF())
+            }
+            repeat(DataInputOutputUtil.readINT(input)) {
+                val fileId = DataInputOutputUtil.readINT(input)
+                val timeStamp = input.readLong()
+                val length = input.readLong()
+                val groups = IntArray(DataInputOutputUtil.readINT(input)) { DataInputOutputUtil.readINT(input) }
+                table.files[fileId] = FileInfo(timeStamp, length, groups)
+            }
+            repeat(DataInputOutputUtil.readINT(input)) {
+                val groupId = DataInputOutputUtil.readINT(input)
+                val bytes = ByteArray(DataInputOutputUtil.readINT(input))
+                input.readFully(bytes)
+                table.shards[groupId] = GroupShard(bytes)
+            }
+            table.extras.read(input)
+            table.extras.forEach { fileId, records ->
+                for (i in records.indices step EXTRA_STRIDE) table.extraFiles[records[i]] = fileId
+            }
+            table.providers.read(input)
+            table.inheritingClasses.read(input)
+            table.inheritingClasses.forEach { fileId, records -> records.forEach { table.inheritingFiles[it] = fileId } }
+            table.patternCalls.read(input)
+            // 写出时已经有序
+            repeat(DataInputOutputUtil.readINT(input)) {
+                table.interceptors.add(
+                    InterceptorEntry(
+                        input.readInt(),
+                        DataInputOutputUtil.readINT(input),
+                        DataInputOutputUtil.readINT(input),
+                        DataInputOutputUtil.readINT(input),
+                        DataInputOutputUtil.readINT(input)
+                    )
+                )
+            }
+            table.compactThreshold = maxOf(MIN_COMPACT_SIZE, table.strings.size * 2)
+            return table
+        }
+    }
+
+    private class FileInfo(val timeStamp: Long, val length: Long, val groups: IntArray)
+
+    private class InterceptorEntry(val priority: Int, val classId: Int, val nameId: Int, val fileId: Int, val offset: Int)
+}
+
+/**
+ * 一条路由的目标，依赖库里的路由 fileUrl 为空、offset 为 -1
+ */
+data class RouteTarget(val path: String, val className: String, val fileUrl: String?, val offset: Int)
+
+/**
+ * 一处 build(path) 调用
+ */
+data class RouteSite(val path: String, val fileUrl: String, val offset: Int)
+
+/**
+ * 路由类上的一个 @Autowired 字段，type 见 [AutowiredExtras.typeOf]，不知道时是 [AutowiredExtras.UNKNOWN_TYPE]；offset 是字段名的位置
+ */
+data class AutowiredField(val className: String, val key: String, val type: String, val fileUrl: String, val offset: Int)
+
+/**
+ * 一个 IProvider 服务实现，serviceName 是 navigation(Class) 查找用的 key；依赖库里的 fileUrl 为空、offset 为 -1
+ */
+data class ProviderTarget(val serviceName: String, val className: String, val fileUrl: String?, val offset: Int)
+
+/**
+ * 一个拦截器，依赖库里的 name 为空、fileUrl 为空、offset 为 -1
+ */
+data class InterceptorTarget(val className: String, val priority: Int, val name: String, val fileUrl: String?, val offset: Int)
+
+/**
+ * 一个文件的路由和调用
+ */
+class FileEntries(val targets: List<RouteTarget>, val calls: List<RouteSite>) {
+
+    val isEmpty: Boolean
+        get() = targets.isEmpty() && calls.isEmpty()
+
+    companion object {
+        val EMPTY = FileEntries(emptyList(), emptyList())
+    }
+}
+
+/**
+ * 扫描文件时记录的 VFS 时间戳
+ */
+data class FileStamp(val url: String, val timeStamp: Long, val length: Long)
+
+/**
+ * 字符串驻留，下标只增不减；没人用的字符串由 [RouteTable] 换一个新池子整理掉
+ */
+class StringPool {
+    private val ids = HashMap<String, Int>()
+    private val values = ArrayList<String>()
+
+    val size: Int
+        get() = values.size
+
+    fun intern(value: String): Int = ids.getOrPut(value) { values.add(value); values.size - 1 }
+
+    fun find(value: String): Int? = ids[value]
+
+    operator fun get(id: Int): String = values[id]
+
+    fun clear() {
+        ids.clear()
+        values.clear()
+    }
+}
+
+/**
+ * 按文件存的定长记录，每个文件一个 int 数组，换文件时整块替换
+ */
+private class FileRecords(private val stride: Int) {
+    private val records = HashMap<Int, IntArray>()
+
+    operator fun get(fileId: Int): IntArray? = records[fileId]
+
+    operator fun set(fileId: Int, values: IntArray) {
+        require(values.size % stride == 0)
+        records[fileId] = values
+    }
+
+    fun remove(fileId: Int): IntArray? = records.remove(fileId)
+
+    /**
+     * 整理字符串表时改下标：fileId 和每条记录的前 stringSlots 个值
+     */
+    fun remap(mapping: (Int) -> Int, stringSlots: Int) {
+        val old = HashMap(records)
+        records.clear()
+        for ((fileId, values) in old) {
+            for (i in values.indices step stride) {
+                for (slot in 0 until stringSlots) values[i + slot] = mapping(values[i + slot])
+            }
+            records[mapping(fileId)] = values
+        }
+    }
+
+    fun forEach(action: (fileId: Int, values: IntArray) -> Unit) {
+        for ((fileId, values) in records) action(fileId, values)
+    }
+
+    fun clear() = records.clear()
+
+    fun write(out: DataOutput) {
+        DataInputOutputUtil.writeINT(out, records.size)
+        for ((fileId, values) in records) {
+            DataInputOutputUtil.writeINT(out, fileId)
+            DataInputOutputUtil.writeINT(out, values.size)
+            values.forEach { DataInputOutputUtil.writeINT(out, it) }
+        }
+    }
+
+    fun read(input: DataInput) {
+        repeat(DataInputOutputUtil.readINT(input)) {
+            val fileId = DataInputOutputUtil.readINT(input)
+            records[fileId] = IntArray(DataInputOutputUtil.readINT(input)) { DataInputOutputUtil.readINT(input) }
+        }
+    }
+}
+
+/**
+ * 一个 group 的路由和调用点，平铺在 int 数组里：
+ * 路由每条 [path, class, file, offset]，调用每条 [path, file, offset]
+ */
+private class GroupShard(private var pending: ByteArray?) {
+
+    private var routes = EMPTY
+    private var routeSize = 0
+    private var calls = EMPTY
+    private var callSize = 0
+
+    val isEmpty: Boolean
+        get() {
+            load()
+            return routeSize == 0 && callSize == 0
+        }
+
+    fun addRoute(pathId: Int, classId: Int, fileId: Int, offset: Int) {
+        load()
+        routes = grow(routes, routeSize + ROUTE_STRIDE)
+        routes[routeSize++] = pathId
+        routes[routeSize++] = classId
+        routes[routeSize++] = fileId
+        routes[routeSize++] = offset
+    }
+
+    fun addCall(pathId: Int, fileId: Int, offset: Int) {
+        load()
+        calls = grow(calls, callSize + CALL_STRIDE)
+        calls[callSize++] = pathId
+        calls[callSize++] = fileId
+        calls[callSize++] = offset
+    }
+
+    fun forEachRoute(action: (pathId: Int, classId: Int, fileId: Int, offset: Int) -> Unit) {
+        load()
+        var i = 0
+        while (i < routeSize) {
+            action(routes[i], routes[i + 1], routes[i + 2], routes[i + 3])
+            i += ROUTE_STRIDE
+        }
+    }
+
+    fun forEachCall(action: (pathId: Int, fileId: Int, offset: Int) -> Unit) {
+        load()
+        var i = 0
+        while (i < callSize) {
+            action(calls[i], calls[i + 1], calls[i + 2])
+            i += CALL_STRIDE
+        }
+    }
+
+    fun removeFile(fileId: Int) {
+        load()
+        routeSize = compact(routes, routeSize, ROUTE_STRIDE, 2, fileId)
+        callSize = compact(calls, callSize, CALL_STRIDE, 1, fileId)
+    }
+
+    /**
+     * 整理字符串表时改下标；原来没解码的改完再编码回去
+     */
+    fun remap(mapping: (Int) -> Int) {
+        val wasPending = pending != null
+        load()
+        remapRecords(routes, routeSize, ROUTE_STRIDE, 3, mapping)//path, class, file
+        remapRecords(calls, callSize, CALL_STRIDE, 2, mapping)//path, file
+        if (wasPending) {
+            pending = toBytes()
+            routes = EMPTY
+            routeSize = 0
+            calls = EMPTY
+            callSize = 0
+        }
+    }
+
+    fun toBytes(): ByteArray {
+        pending?.let { return it }
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { out ->
+            DataInputOutputUtil.writeINT(out, routeSize)
+            for (i in 0 until routeSize) DataInputOutputUtil.writeINT(out, routes[i])
+            DataInputOutputUtil.writeINT(out, callSize)
+            for (i in 0 until callSize) DataInputOutputUtil.writeINT(out, calls[i])
+        }
+        return bytes.toByteArray()
+    }
+
+    fun load() {
+        val bytes = pending ?: return
+        pending = null
+        DataInputStream(ByteArrayInputStream(bytes)).use { input ->
+            routeSize = DataInputOutputUtil.readINT(input)
+            routes = IntArray(routeSize) { DataInputOutputUtil.readINT(input) }
+            callSize = DataInputOutputUtil.readINT(input)
+            calls = IntArray(callSize) { DataInputOutputUtil.readINT(input) }
+        }
+    }
+
+    companion object {
+        const val ROUTE_STRIDE = 4
+        const val CALL_STRIDE = 3
+        private val EMPTY = IntArray(0)
+
+        private fun grow(array: IntArray, required: Int): IntArray {
+            if (required <= array.size) return array
+            return array.copyOf(maxOf(required, array.size * 2, 16))
+        }
+
+        private fun remapRecords(array: IntArray, size: Int, stride: Int, stringSlots: Int, mapping: (Int) -> Int) {
+            for (i in 0 until size step stride) {
+                for (slot in 0 until stringSlots) array[i + slot] = mapping(array[i + slot])
+            }
+        }
+
+        /**
+         * 去掉属于 fileId 的记录，返回新的长度
+         */
+        private fun compact(array: IntArray, size: Int, stride: Int, fileSlot: Int, fileId: Int): Int {
+            var write = 0
+            var read = 0
+            while (read < size) {
+                if (array[read + fileSlot] != fileId) {
+                    if (write != read) System.arraycopy(array, read, array, write, stride)
+                    write += stride
+                }
+                read += stride
+            }
+            return write
+        }
+    }
+}
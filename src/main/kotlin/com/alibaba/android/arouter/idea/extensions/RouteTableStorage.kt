@@ -0,0 +1,80 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.PathManager
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.project.Project
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+
+/**
+ * 路由表落盘，IDE 重启后不用等重新扫描。
+ *
+ * 文件在 system 目录下，每个工程一个；内容见 [RouteTable.write]：字符串表 + 按 group 的 varint 分片，
+ * 每个源码文件记录 VFS 的 timeStamp/length，加载时对不上的文件标记为需要重新扫描。
+ */
+object RouteTableStorage {
+
+    private val LOG = Logger.getInstance(RouteTableStorage::class.java)
+
+    private const val MAGIC = 0x41525431 // "ART1"
+    private const val VERSION = 8
+
+    fun storageFile(project: Project): File {
+        return File(File(PathManager.getSystemPath(), "arouter"), "${project.locationHash}.bin")
+    }
+
+    /**
+     * 在 EDT 上调用时(比如关闭工程)放到后台线程写，调用之后 table 不能再改
+     */
+    fun save(project: Project, table: RouteTable) {
+        val target = storageFile(project)
+        val projectName = project.name
+        if (ApplicationManager.getApplication().isDispatchThread) {
+            ApplicationManager.getApplication().executeOnPooledThread { write(target, projectName, table) }
+        } else {
+            write(target, projectName, table)
+        }
+    }
+
+    private fun write(target: File, projectName: String, table: RouteTable) {
+        val temp = File(target.parentFile, target.name + ".tmp")
+        try {
+            target.parentFile.mkdirs()
+            DataOutputStream(BufferedOutputStream(temp.outputStream())).use { out ->
+                out.writeInt(MAGIC)
+                out.writeInt(VERSION)
+                table.write(out)
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        } catch (e: IOException) {
+            LOG.warn("Failed to save route table of $projectName", e)
+            temp.delete()
+        }
+    }
+
+    /**
+     * 读取上次保存的路由表，文件不存在或格式不对返回 null
+     */
+    fun load(project: Project): RouteTable? {
+        val file = storageFile(project)
+        if (!file.isFile) return null
+        return try {
+            DataInputStream(BufferedInputStream(file.inputStream())).use { input ->
+                if (input.readInt() != MAGIC || input.readInt() != VERSION) throw IOException("unknown format")
+                RouteTable.read(input)
+            }
+        } catch (e: Exception) {
+            // 截断或损坏的文件在读 int 数组时也会抛 NegativeArraySizeException、IndexOutOfBoundsException 这类异常
+            LOG.info("Discard route table of ${project.name}: $e")
+            file.delete()
+            null
+        }
+    }
+}
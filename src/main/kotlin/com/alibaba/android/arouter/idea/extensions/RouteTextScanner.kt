@@ -0,0 +1,324 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.fileEditor.OpenFileDescriptor
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.vfs.VirtualFile
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+
+/**
+ * 索引没建好(dumb mode)时用的文本扫描。
+ *
+ * 直接用 NIO 把源码文件的字节读进一块复用的缓冲区(不做内存映射，免得在 Windows 上锁住用户的文件)，按词法跳过注释和字符串，只认字面量形式的
+ * `@Route(path = "...")` 和 `.build("...")`，结果只在 dumb mode 期间使用。
+ */
+object RouteTextScanner {
+
+    private val LOG = Logger.getInstance(RouteTextScanner::class.java)
+
+    private const val INITIAL_BUFFER_SIZE = 64 * 1024
+
+    fun scanProject(project: Project): ProvisionalRoutes {
+        val files = ArrayList<VirtualFile>()
+        ReadAction.run<RuntimeException> {
+            ProjectFileIndex.getInstance(project).iterateContent { file ->
+                if (!file.isDirectory && (file.extension == "java" || file.extension == "kt")) {
+                    files.add(file)
+                }
+                true
+            }
+        }
+
+        val result = ProvisionalRoutes()
+        // 所有文件共用，只在遇到更大的文件时换一块
+        var buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE)
+        for (file in files) {
+            ProgressManager.checkCanceled()
+            buffer = try {
+                read(file, buffer)
+            } catch (e: IOException) {
+                LOG.debug("Failed to read ${file.path}", e)
+                continue
+            }
+            scan(buffer, file, result)
+        }
+        return result
+    }
+
+    fun scan(buffer: ByteBuffer, file: VirtualFile, out: ProvisionalRoutes) {
+        Lexer(buffer, file, out).run()
+    }
+
+    /**
+     * 把文件读进 buffer，放不下时换一块更大的；返回的 buffer 从 0 到 limit 是文件内容
+     */
+    private fun read(file: VirtualFile, buffer: ByteBuffer): ByteBuffer {
+        if (!file.isInLocalFileSystem) {
+            val bytes = file.contentsToByteArray()
+            val target = ensureCapacity(buffer, bytes.size)
+            target.put(bytes).flip()
+            return target
+        }
+        FileChannel.open(file.toNioPath(), StandardOpenOption.READ).use { channel ->
+            val target = ensureCapacity(buffer, channel.size().toInt())
+            while (target.hasRemaining() && channel.read(target) >= 0) {
+                // read fully
+            }
+            target.flip()
+            return target
+        }
+    }
+
+    /**
+     * 清空后可以写入 size 个字节的 buffer
+     */
+    private fun ensureCapacity(buffer: ByteBuffer, size: Int): ByteBuffer {
+        val target = if (size > buffer.capacity()) ByteBuffer.allocate(maxOf(size, buffer.capacity() * 2)) else buffer
+        target.clear()
+        target.limit(size)
+        return target
+    }
+
+    private class Lexer(private val buffer: ByteBuffer, private val file: VirtualFile, private val out: ProvisionalRoutes) {
+        private val end = buffer.limit()
+        private var pos = 0
+        private var line = 0
+        private var packageName = ""
+        private var pendingPath: String? = null
+
+        fun run() {
+            while (pos < end) {
+                val c = at(pos)
+                when {
+                    c == '\n' -> { line++; pos++ }
+                    c == '/' && at(pos + 1) == '/' -> skipLineComment()
+                    c == '/' && at(pos + 1) == '*' -> skipBlockComment()
+                    c == '"' -> readString()
+                    c == '\'' -> skipChar()
+                    c == '@' -> {
+                        pos++
+                        if (qualifiedIdentifier().substringAfterLast('.') == RouteFileScanner.ROUTE_SHORT_NAME) {
+                            annotationPath()?.let { pendingPath = it }
+                        }
+                    }
+                    isIdentifierStart(c) -> {
+                        val previous = previousSignificant()
+                        onIdentifier(identifier(), previous)
+                    }
+                    else -> pos++
+                }
+            }
+        }
+
+        private fun onIdentifier(name: String, previous: Char) {
+            when (name) {
+                "package" -> {
+                    skipTrivia()
+                    packageName = qualifiedIdentifier()
+                }
+                "class", "object", "interface" -> {
+                    val path = pendingPath ?: return
+                    // Foo.class / Foo::class
+                    if (previous == '.' || previous == ':') return
+                    skipTrivia()
+                    val className = identifier()
+                    if (className.isEmpty()) return
+                    val fullName = if (packageName.isEmpty()) className else "$packageName.$className"
+                    out.addTarget(path, TextSite(file, line, fullName))
+                    pendingPath = null
+                }
+                RouteFileScanner.BUILD_METHOD -> {
+                    if (previous != '.') return
+                    val callLine = line
+                    skipTrivia()
+                    if (at(pos) != '(') return
+                    pos++
+                    skipTrivia()
+                    if (at(pos) != '"') return
+                    val path = readString()
+                    skipTrivia()
+                    if (at(pos) == ')' && path.startsWith("/")) {
+                        out.addCall(path, TextSite(file, callLine, file.nameWithoutExtension))
+                    }
+                }
+            }
+        }
+
+        /**
+         * 解析 (path = "...") 或 ("...")，光标停在右括号后面
+         */
+        private fun annotationPath(): String? {
+            skipTrivia()
+            if (at(pos) != '(') return null
+            pos++
+            var depth = 1
+            var first = true
+            var expectPath = false
+            var path: String? = null
+            while (pos < end && depth > 0) {
+                skipTrivia()
+                val c = at(pos)
+                when {
+                    c == '"' -> {
+                        val value = readString()
+                        if (expectPath || (first && path == null)) path = value
+                        expectPath = false
+                    }
+                    isIdentifierStart(c) -> {
+                        if (identifier() == RouteFileScanner.PATH_ATTRIBUTE) {
+                            skipTrivia()
+                            if (at(pos) == '=') {
+                                pos++
+                                expectPath = true
+                            }
+                        }
+                    }
+                    else -> {
+                        if (c == '(') depth++
+                        if (c == ')') depth--
+                        pos++
+                    }
+                }
+                first = false
+            }
+            return path
+        }
+
+        private fun readString(): String {
+            if (at(pos + 1) == '"' && at(pos + 2) == '"') {
+                val start = pos + 3
+                pos = start
+                while (pos < end && !(at(pos) == '"' && at(pos + 1) == '"' && at(pos + 2) == '"')) {
+                    if (at(pos) == '\n') line++
+                    pos++
+                }
+                val value = text(start, pos)
+                pos += 3
+                return value
+            }
+            val start = ++pos
+            while (pos < end) {
+                val c = at(pos)
+                if (c == '"' || c == '\n') break
+                pos += if (c == '\\') 2 else 1
+            }
+            val value = text(start, minOf(pos, end))
+            if (at(pos) == '"') pos++
+            return value
+        }
+
+        private fun skipChar() {
+            pos++
+            while (pos < end) {
+                val c = at(pos)
+                if (c == '\'' || c == '\n') break
+                pos += if (c == '\\') 2 else 1
+            }
+            if (at(pos) == '\'') pos++
+        }
+
+        private fun skipLineComment() {
+            while (pos < end && at(pos) != '\n') pos++
+        }
+
+        private fun skipBlockComment() {
+            pos += 2
+            while (pos < end && !(at(pos) == '*' && at(pos + 1) == '/')) {
+                if (at(pos) == '\n') line++
+                pos++
+            }
+            pos += 2
+        }
+
+        private fun skipTrivia() {
+            while (pos < end) {
+                val c = at(pos)
+                when {
+                    c == '\n' -> { line++; pos++ }
+                    c == ' ' || c == '\t' || c == '\r' -> pos++
+                    c == '/' && at(pos + 1) == '/' -> skipLineComment()
+                    c == '/' && at(pos + 1) == '*' -> skipBlockComment()
+                    else -> return
+                }
+            }
+        }
+
+        private fun identifier(): String {
+            val start = pos
+            if (pos < end && isIdentifierStart(at(pos))) {
+                pos++
+                while (pos < end && isIdentifierPart(at(pos))) pos++
+            }
+            return text(start, pos)
+        }
+
+        private fun qualifiedIdentifier(): String {
+            val builder = StringBuilder(identifier())
+            while (at(pos) == '.' && isIdentifierStart(at(pos + 1))) {
+                pos++
+                builder.append('.').append(identifier())
+            }
+            return builder.toString()
+        }
+
+        private fun previousSignificant(): Char {
+            var i = pos - 1
+            while (i >= 0) {
+                val c = at(i)
+                if (c != ' ' && c != '\t' && c != '\r' && c != '\n') return c
+                i--
+            }
+            return ' '
+        }
+
+        private fun at(index: Int): Char = if (index < end) (buffer.get(index).toInt() and 0xFF).toChar() else 0.toChar()
+
+        private fun text(start: Int, endExclusive: Int): String {
+            val bytes = ByteArray(endExclusive - start)
+            for (i in bytes.indices) bytes[i] = buffer.get(start + i)
+            return String(bytes, Charsets.UTF_8)
+        }
+
+        private fun isIdentifierStart(c: Char) = c == '_' || c == '$' || c in 'a'..'z' || c in 'A'..'Z'
+
+        private fun isIdentifierPart(c: Char) = isIdentifierStart(c) || c in '0'..'9' || c.code >= 0x80
+    }
+}
+
+/**
+ * 文本扫描得到的临时路由表，path -> 声明/调用的位置
+ */
+class ProvisionalRoutes {
+    private val targets = HashMap<String, MutableList<TextSite>>()
+    private val calls = HashMap<String, MutableList<TextSite>>()
+
+    fun addTarget(path: String, site: TextSite) {
+        targets.getOrPut(RoutePath.normalize(path)) { ArrayList(1) }.add(site)
+    }
+
+    fun addCall(path: String, site: TextSite) {
+        calls.getOrPut(RoutePath.normalize(path)) { ArrayList(2) }.add(site)
+    }
+
+    fun targets(path: String): List<TextSite> = targets[RoutePath.normalize(path)].orEmpty()
+
+    fun calls(path: String): List<TextSite> = calls[RoutePath.normalize(path)].orEmpty()
+}
+
+/**
+ * 文本扫描得到的位置，line 从 0 开始
+ */
+class TextSite(val file: VirtualFile, val line: Int, val name: String) {
+
+    fun navigate(project: Project) {
+        OpenFileDescriptor(project, file, line, 0).navigate(true)
+    }
+
+    override fun toString(): String = "${name.substringAfterLast('.')} (${file.name}:${line + 1})"
+}
@@ -0,0 +1,49 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.project.DumbAware
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.wm.ToolWindow
+import com.intellij.openapi.wm.ToolWindowFactory
+import com.intellij.openapi.wm.ToolWindowManager
+import com.intellij.ui.content.ContentFactory
+import javax.swing.JComponent
+
+/**
+ * "ARouter" 工具窗口，每个分析一个页签
+ */
+class RouteToolWindowFactory : ToolWindowFactory, DumbAware {
+
+    override fun createToolWindowContent(project: Project, toolWindow: ToolWindow) {
+        val contentManager = toolWindow.contentManager
+        val unusedRoutes = UnusedRoutesPanel(project)
+        contentManager.addContent(ContentFactory.getInstance().createContent(unusedRoutes, UnusedRoutesPanel.TITLE, false).apply {
+            setDisposer(unusedRoutes)
+        })
+        val statistics = RouteStatisticsPanel(project)
+        contentManager.addContent(ContentFactory.getInstance().createContent(statistics, RouteStatisticsPanel.TITLE, false).apply {
+            setDisposer(statistics)
+        })
+        statistics.refresh()
+        val graph = RouteGraphPanel(project)
+        contentManager.addContent(ContentFactory.getInstance().createContent(graph, RouteGraphPanel.TITLE, false).apply {
+            setDisposer(graph)
+        })
+    }
+
+    companion object {
+        const val TOOL_WINDOW_ID = "ARouter"
+
+        /**
+         * 打开工具窗口并切到类型为 T 的页签，然后把页签交给 action
+         */
+        inline fun <reified T : JComponent> show(project: Project, crossinline action: (T) -> Unit) {
+            val toolWindow = ToolWindowManager.getInstance(project).getToolWindow(TOOL_WINDOW_ID) ?: return
+            toolWindow.activate {
+                val contentManager = toolWindow.contentManager
+                val content = contentManager.contents.firstOrNull { it.component is T } ?: return@activate
+                contentManager.setSelectedContent(content)
+                action(content.component as T)
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.codeInsight.hint.HintManager
+import com.intellij.openapi.actionSystem.ActionUpdateThread
+import com.intellij.openapi.actionSystem.AnAction
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.actionSystem.CommonDataKeys
+import com.intellij.openapi.ui.popup.JBPopupFactory
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiJavaFile
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.ui.SimpleListCellRenderer
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtFile
+import javax.swing.ListSelectionModel
+
+/**
+ * 编辑器右键菜单里的 "Show Interceptor Chain"：光标所在跳转会按顺序经过哪些拦截器，选中后跳到拦截器类。
+ *
+ * 拦截器链来自 [RouteInterceptors.chain] 的缓存，弹出时不再搜索。
+ */
+class ShowInterceptorChainAction : AnAction() {
+
+    override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.BGT
+
+    override fun update(e: AnActionEvent) {
+        val file = e.getData(CommonDataKeys.PSI_FILE)
+        e.presentation.isEnabledAndVisible = e.project != null && e.getData(CommonDataKeys.EDITOR) != null &&
+                (file is PsiJavaFile || file is KtFile)
+    }
+
+    override fun actionPerformed(e: AnActionEvent) {
+        val project = e.project ?: return
+        val editor = e.getData(CommonDataKeys.EDITOR) ?: return
+        val file = e.getData(CommonDataKeys.PSI_FILE) ?: return
+        val buildCall = buildCallAt(file, editor.caretModel.offset)
+        if (buildCall == null) {
+            HintManager.getInstance().showErrorHint(editor, "Place the caret on an ARouter build(...) call")
+            return
+        }
+        if (RouteInterceptors.isGreenChannel(buildCall)) {
+            HintManager.getInstance().showInformationHint(editor, "greenChannel() skips all interceptors")
+            return
+        }
+        val chain = RouteInterceptors.chain(project)
+        if (chain.isEmpty()) {
+            HintManager.getInstance().showInformationHint(editor, "No @Interceptor in this project")
+            return
+        }
+
+        val duplicates = RouteInterceptors.duplicatePriorities(chain)
+        val path = RouteCalls.pathOf(buildCall)
+        JBPopupFactory.getInstance()
+            .createPopupChooserBuilder(chain)
+            .setTitle(if (path != null) "Interceptors before $path" else "Interceptors")
+            .setRenderer(SimpleListCellRenderer.create<InterceptorTarget>("") { target ->
+                val name = if (target.name.isNotEmpty()) "  \"${target.name}\"" else ""
+                val duplicate = if (target.priority in duplicates) "  (duplicate priority)" else ""
+                "${target.priority}  ${target.className.substringAfterLast('.')}$name$duplicate"
+            })
+            .setSelectionMode(ListSelectionModel.SINGLE_SELECTION)
+            .setItemChosenCallback { RouteInterceptors.resolve(project, it)?.navigate(true) }
+            .createPopup()
+            .showInBestPositionFor(editor)
+    }
+
+    /**
+     * 光标在 build(...) 上，或者在它后面的 withXxx/navigation 调用上
+     */
+    private fun buildCallAt(file: PsiFile, offset: Int): PsiElement? {
+        var call = file.findElementAt(offset)?.let { RouteCalls.buildCallOf(it) }
+        while (call != null) {
+            val isBuild = when (call) {
+                is PsiMethodCallExpression -> RouteCalls.isARouterBuild(call)
+                is KtCallExpression -> RouteCalls.isARouterBuild(call)
+                else -> false
+            }
+            if (isBuild) return call
+            RouteCalls.chainedBuildCallOf(call)?.let { return it }
+            call = call.parent?.let { RouteCalls.buildCallOf(it) }
+        }
+        return null
+    }
+}
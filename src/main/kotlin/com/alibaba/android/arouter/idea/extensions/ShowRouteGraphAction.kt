@@ -0,0 +1,22 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread
+import com.intellij.openapi.actionSystem.AnAction
+import com.intellij.openapi.actionSystem.AnActionEvent
+
+/**
+ * Analyze 菜单里的 "Route Navigation Graph"，在 ARouter 工具窗口里构建导航图
+ */
+class ShowRouteGraphAction : AnAction() {
+
+    override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.BGT
+
+    override fun update(e: AnActionEvent) {
+        e.presentation.isEnabled = e.project != null
+    }
+
+    override fun actionPerformed(e: AnActionEvent) {
+        val project = e.project ?: return
+        RouteToolWindowFactory.show<RouteGraphPanel>(project) { it.rebuild() }
+    }
+}
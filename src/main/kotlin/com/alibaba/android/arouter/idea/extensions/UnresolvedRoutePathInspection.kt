@@ -0,0 +1,29 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.codeInspection.LocalInspectionTool
+import com.intellij.codeInspection.ProblemHighlightType
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiElementVisitor
+
+/**
+ * build(path) 的路径没有任何 @Route 声明。
+ *
+ * 路径支持字面量和能算出值的常量；是否有目标只查 [RouteIndex]，不搜索，
+ * 所以在 inspect.sh 这类无界面的批量检查里也能跑整个工程。
+ */
+class UnresolvedRoutePathInspection : LocalInspectionTool() {
+
+    override fun buildVisitor(holder: ProblemsHolder, isOnTheFly: Boolean): PsiElementVisitor {
+        val index = RouteIndex.getInstance(holder.project)
+        if (!index.prepareForInspection(isOnTheFly)) return PsiElementVisitor.EMPTY_VISITOR
+        return object : PsiElementVisitor() {
+            override fun visitElement(element: PsiElement) {
+                val path = RouteCalls.pathOf(element) ?: return
+                if (index.targets(path).isNotEmpty()) return
+                val argument = RouteCalls.pathArgumentOf(element) ?: return
+                holder.registerProblem(argument, "No @Route declares path '$path'", ProblemHighlightType.GENERIC_ERROR_OR_WARNING)
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.icons.AllIcons
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.actionSystem.ActionManager
+import com.intellij.openapi.actionSystem.ActionUpdateThread
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.actionSystem.DefaultActionGroup
+import com.intellij.openapi.application.ModalityState
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.project.DumbAwareAction
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.ui.SimpleToolWindowPanel
+import com.intellij.ui.ColoredListCellRenderer
+import com.intellij.ui.DoubleClickListener
+import com.intellij.ui.ScrollPaneFactory
+import com.intellij.ui.SimpleTextAttributes
+import com.intellij.ui.components.JBList
+import com.intellij.util.concurrency.AppExecutorUtil
+import java.awt.event.KeyAdapter
+import java.awt.event.KeyEvent
+import java.awt.event.MouseEvent
+import javax.swing.DefaultListModel
+import javax.swing.JList
+
+/**
+ * 没有任何 build 调用的 @Route，只看工程源码里的声明。
+ *
+ * 声明路径和调用路径两个集合直接做差，不对每个路由单独找调用。
+ */
+class UnusedRoutesPanel(private val project: Project) : SimpleToolWindowPanel(true, true), Disposable {
+
+    private val model = DefaultListModel<RouteTarget>()
+    private val list = JBList(model)
+
+    init {
+        list.emptyText.text = "Press Refresh to find routes that are never navigated to"
+        list.cellRenderer = object : ColoredListCellRenderer<RouteTarget>() {
+            override fun customizeCellRenderer(list: JList<out RouteTarget>, value: RouteTarget, index: Int, selected: Boolean, hasFocus: Boolean) {
+                icon = NavigationLineMarker.navigationOnIcon
+                append(value.path)
+                append("  " + value.className, SimpleTextAttributes.GRAYED_ATTRIBUTES)
+            }
+        }
+        object : DoubleClickListener() {
+            override fun onDoubleClick(event: MouseEvent): Boolean {
+                navigateToSelected()
+                return true
+            }
+        }.installOn(list)
+        list.addKeyListener(object : KeyAdapter() {
+            override fun keyPressed(e: KeyEvent) {
+                if (e.keyCode == KeyEvent.VK_ENTER) navigateToSelected()
+            }
+        })
+
+        val actions = DefaultActionGroup(object : DumbAwareAction("Refresh", "Find unused routes again", AllIcons.Actions.Refresh) {
+            override fun getActionUpdateThread(): ActionUpdateThread = ActionUpdateThread.EDT
+
+            override fun actionPerformed(e: AnActionEvent) = refresh()
+        })
+        val toolbar = ActionManager.getInstance().createActionToolbar(TITLE, actions, true)
+        toolbar.targetComponent = this
+        setToolbar(toolbar.component)
+        setContent(ScrollPaneFactory.createScrollPane(list))
+    }
+
+    fun refresh() {
+        list.setPaintBusy(true)
+        ReadAction.nonBlocking<List<RouteTarget>> { findUnusedRoutes(project) }
+            .inSmartMode(project)
+            .expireWith(this)
+            .finishOnUiThread(ModalityState.defaultModalityState()) { unused ->
+                model.clear()
+                model.addAll(unused)
+                list.emptyText.text = "All routes are used"
+                list.setPaintBusy(false)
+            }
+            .submit(AppExecutorUtil.getAppExecutorService())
+    }
+
+    private fun navigateToSelected() {
+        val target = list.selectedValue ?: return
+        RouteIndex.getInstance(project).resolve(target)?.navigate(true)
+    }
+
+    override fun dispose() {}
+
+    companion object {
+        const val TITLE = "Unused Routes"
+
+        /**
+         * 会先把路由表更新到最新，需要在后台 smart mode 的 read action 里调用。
+         * IProvider 服务通过 navigation(Class) 获取，不算没用；能被动态路径匹配到的也不算。
+         */
+        fun findUnusedRoutes(project: Project): List<RouteTarget> {
+            val index = RouteIndex.getInstance(project)
+            index.verify()
+            // 只看源码路由表，依赖库的路由不用加载
+            val entries = index.sourceEntries().second
+            val called = entries.calls.mapTo(HashSet()) { it.path }
+            val services = RouteServices.serviceMap(project).values.flatten().mapTo(HashSet()) { it.className }
+            val patterns = index.allPatternCalls().mapNotNullTo(LinkedHashSet()) { RoutePattern.parse(it.path) }
+            return entries.targets
+                .filter { it.path !in called && it.className !in services }
+                .filter { target -> patterns.none { it.matches(target.path) } }
+                .sortedBy { it.path }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiExpression
+import com.intellij.psi.PsiMethod
+import com.intellij.psi.PsiMethodCallExpression
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.intellij.psi.util.PsiModificationTracker
+import org.jetbrains.kotlin.idea.references.mainReference
+import org.jetbrains.kotlin.psi.KtCallExpression
+import org.jetbrains.kotlin.psi.KtDotQualifiedExpression
+import org.jetbrains.kotlin.psi.KtNameReferenceExpression
+
+/**
+ * build(Uri.parse("myapp://host/user/profile?id=1")) 里的路由路径。
+ *
+ * 和 ARouter 一样只取 uri 的 path 部分；结果按调用处缓存，PSI 不变就不会重新解析。
+ */
+object UriPaths {
+
+    const val URI_CLASS = "android.net.Uri"
+    private const val PARSE_METHOD = "parse"
+
+    /**
+     * argument 是 Uri.parse(字面量或常量) 时返回规范化的路径
+     */
+    fun pathOf(argument: PsiElement?): String? {
+        argument ?: return null
+        if (argument !is PsiMethodCallExpression && argument !is KtDotQualifiedExpression && argument !is KtCallExpression) return null
+        return CachedValuesManager.getCachedValue(argument) {
+            CachedValueProvider.Result.create(computePath(argument), PsiModificationTracker.MODIFICATION_COUNT)
+        }
+    }
+
+    /**
+     * 去掉 scheme、host、query，只留 path
+     */
+    fun extractPath(uri: String): String? {
+        var rest = uri.trim()
+        val schemeEnd = rest.indexOf("://")
+        if (schemeEnd >= 0) {
+            val pathStart = rest.indexOf('/', schemeEnd + 3)
+            rest = if (pathStart < 0) "" else rest.substring(pathStart)
+        }
+        val path = RoutePath.normalize(rest)
+        return if (path.length > 1) path else null
+    }
+
+    private fun computePath(argument: PsiElement): String? {
+        val uri = when (argument) {
+            is PsiMethodCallExpression -> {
+                if (argument.methodExpression.referenceName != PARSE_METHOD) return null
+                if (!isUriParse(argument.resolveMethod())) return null
+                PathResolver.javaPath(argument.argumentList.expressions.singleOrNull() as? PsiExpression)
+            }
+            is KtDotQualifiedExpression -> return computePath(argument.selectorExpression ?: return null)
+            is KtCallExpression -> {
+                val callee = argument.calleeExpression as? KtNameReferenceExpression ?: return null
+                if (callee.getReferencedName() != PARSE_METHOD) return null
+                if (!isUriParse(callee.mainReference.resolve() as? PsiMethod)) return null
+                PathResolver.kotlinPath(argument.valueArguments.singleOrNull()?.getArgumentExpression())
+            }
+            else -> null
+        } ?: return null
+        return extractPath(uri)
+    }
+
+    private fun isUriParse(method: PsiMethod?): Boolean {
+        return method != null && method.name == PARSE_METHOD && method.containingClass?.qualifiedName == URI_CLASS
+    }
+}
@@ -0,0 +1,60 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class RoutePathTest {
+
+    @Test
+    fun normalizedPathIsReturnedAsIs() {
+        val path = "/user/profile"
+        assertSame(path, RoutePath.normalize(path))
+    }
+
+    @Test
+    fun quotesAndWhitespaceAreRemoved() {
+        assertEquals("/user/profile", RoutePath.normalize("  \"/user/profile\" "))
+        assertEquals("/user/profile", RoutePath.normalize("\" /user/profile \""))
+    }
+
+    @Test
+    fun leadingSlashIsAdded() {
+        assertEquals("/user/profile", RoutePath.normalize("user/profile"))
+    }
+
+    @Test
+    fun slashesAreCollapsedAndTrailingSlashRemoved() {
+        assertEquals("/user/profile", RoutePath.normalize("//user///profile/"))
+        assertEquals("/user/profile", RoutePath.normalize("/user/profile//"))
+    }
+
+    @Test
+    fun queryAndFragmentAreCut() {
+        assertEquals("/user/profile", RoutePath.normalize("/user/profile?id=1&name=a"))
+        assertEquals("/user/profile", RoutePath.normalize("/user/profile#top"))
+        assertEquals("/user/profile", RoutePath.normalize("/user/profile/?id=1#top"))
+    }
+
+    @Test
+    fun emptyInputs() {
+        assertEquals("", RoutePath.normalize(""))
+        assertEquals("", RoutePath.normalize("   "))
+        assertEquals("", RoutePath.normalize("\"\""))
+        assertEquals("", RoutePath.normalize("?id=1"))
+    }
+
+    @Test
+    fun rootStaysRoot() {
+        assertEquals("/", RoutePath.normalize("/"))
+        assertEquals("/", RoutePath.normalize("//"))
+    }
+
+    @Test
+    fun normalizeIsIdempotent() {
+        for (raw in listOf("user//profile/", " \"/a/b?c\" ", "/", "a")) {
+            val once = RoutePath.normalize(raw)
+            assertEquals(once, RoutePath.normalize(once))
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class RouteSearchModelTest {
+
+    @Test
+    fun missingCharactersDoNotMatch() {
+        assertEquals(-1, RouteSearchModel.score("/user/profile", "/order"))
+        assertEquals(-1, RouteSearchModel.score("/a", "/a/b"))
+        assertEquals(-1, RouteSearchModel.score("", "a"))
+    }
+
+    @Test
+    fun charactersMustMatchInOrder() {
+        assertEquals(-1, RouteSearchModel.score("/user/profile", "pu"))
+        assertTrue(RouteSearchModel.score("/user/profile", "up") >= 0)
+    }
+
+    @Test
+    fun emptyPatternMatchesEverything() {
+        assertTrue(RouteSearchModel.score("/user/profile", "") >= 0)
+        assertTrue(RouteSearchModel.score("", "") >= 0)
+    }
+
+    @Test
+    fun prefixRanksAboveContains() {
+        assertTrue(RouteSearchModel.score("/user/profile", "/user") > RouteSearchModel.score("/main/user", "/user"))
+    }
+
+    @Test
+    fun containsRanksAboveSubsequence() {
+        assertTrue(RouteSearchModel.score("/user/profile", "prof") > RouteSearchModel.score("/user/pxrxoxf", "prof"))
+    }
+
+    @Test
+    fun segmentStartsRankAboveMiddleOfWords() {
+        // 长度相同，只差在命中的是不是段开头
+        assertTrue(RouteSearchModel.score("/user/profile", "up") > RouteSearchModel.score("/xuxpxxxxxxxx", "up"))
+        assertTrue(RouteSearchModel.score("/user_profile", "up") > RouteSearchModel.score("/userxprofile", "up"))
+    }
+
+    @Test
+    fun shorterCandidateRanksFirst() {
+        assertTrue(RouteSearchModel.score("/user/profile", "/user/profile") > RouteSearchModel.score("/user/profile/edit", "/user/profile"))
+    }
+
+    @Test
+    fun scoreIsNeverNegativeForMatches() {
+        assertEquals(0, RouteSearchModel.score("x".repeat(5000) + "a", "a"))
+    }
+}
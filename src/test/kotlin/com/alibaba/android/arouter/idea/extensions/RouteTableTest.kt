@@ -0,0 +1,135 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.testFramework.LightVirtualFile
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+
+class RouteTableTest : BasePlatformTestCase() {
+
+    fun testWriteReadRoundTrip() {
+        val table = RouteTable()
+        val main = LightVirtualFile("MainActivity.java", "")
+        val user = LightVirtualFile("UserActivity.kt", "")
+        table.replaceFile(
+            fileRoutes(
+                main,
+                routes = listOf(RouteDeclaration("/main/home", "com.example.MainActivity", 10)),
+                calls = listOf(RouteCallSite("/user/profile", 42)),
+                interceptors = listOf(RouteInterceptor("com.example.LoginInterceptor", 3, "login", 7)),
+                providers = listOf(RouteProvider("com.example.IUserService", "com.example.UserService", 5)),
+                patternCalls = listOf(RouteCallSite("/user/{}", 60))
+            )
+        )
+        table.replaceFile(
+            fileRoutes(
+                user,
+                routes = listOf(RouteDeclaration("/user/profile", "com.example.UserActivity", 20)),
+                extras = listOf(RouteExtra("com.example.UserActivity", "id", "int", 30)),
+                inheritingClasses = listOf("com.example.UserActivity")
+            )
+        )
+
+        val copy = roundTrip(table)
+
+        assertEquals(listOf(RouteTarget("/main/home", "com.example.MainActivity", main.url, 10)), copy.targets("/main/home"))
+        assertEquals(listOf(RouteTarget("/user/profile", "com.example.UserActivity", user.url, 20)), copy.targets("/user/profile"))
+        assertEquals(listOf(RouteSite("/user/profile", main.url, 42)), copy.callSites("/user/profile"))
+        assertEquals(
+            listOf(AutowiredField("com.example.UserActivity", "id", "int", user.url, 30)),
+            copy.autowiredFields("com.example.UserActivity")
+        )
+        assertTrue(copy.inheritsSourceClass("com.example.UserActivity"))
+        assertFalse(copy.inheritsSourceClass("com.example.MainActivity"))
+        assertEquals(
+            listOf(ProviderTarget("com.example.IUserService", "com.example.UserService", main.url, 5)),
+            copy.allProviders()
+        )
+        assertEquals(
+            listOf(InterceptorTarget("com.example.LoginInterceptor", 3, "login", main.url, 7)),
+            copy.interceptors()
+        )
+        assertEquals(listOf(RouteSite("/user/{}", main.url, 60)), copy.allPatternCalls())
+        assertEquals(table.fileStamps().toSet(), copy.fileStamps().toSet())
+    }
+
+    fun testRemoveFileAfterRead() {
+        val table = RouteTable()
+        val file = LightVirtualFile("MainActivity.java", "")
+        table.replaceFile(fileRoutes(file, routes = listOf(RouteDeclaration("/main/home", "com.example.MainActivity", 10))))
+
+        val copy = roundTrip(table)
+
+        assertTrue(copy.removeFile(file.url))
+        assertEmpty(copy.targets("/main/home"))
+        assertFalse(copy.containsFile(file.url))
+    }
+
+    fun testCompactionDropsReplacedStrings() {
+        val table = RouteTable()
+        val file = LightVirtualFile("MainActivity.java", "")
+        val other = LightVirtualFile("UserActivity.java", "")
+        table.replaceFile(
+            fileRoutes(
+                other,
+                routes = listOf(RouteDeclaration("/user/profile", "com.example.UserActivity", 20)),
+                extras = listOf(RouteExtra("com.example.UserActivity", "id", "int", 30)),
+                interceptors = listOf(RouteInterceptor("com.example.LoginInterceptor", 3, "login", 7)),
+                inheritingClasses = listOf("com.example.UserActivity")
+            )
+        )
+        // 每轮换进新的 group、路径和类名，足够让字符串表整理好几次
+        for (i in 0 until 5000) {
+            table.replaceFile(
+                fileRoutes(
+                    file,
+                    routes = listOf(RouteDeclaration("/g$i/page", "com.example.Page$i", i)),
+                    calls = listOf(RouteCallSite("/user/profile", i))
+                )
+            )
+        }
+
+        for (copy in listOf(table, roundTrip(table))) {
+            assertEmpty(copy.targets("/g0/page"))
+            assertEquals(listOf(RouteTarget("/g4999/page", "com.example.Page4999", file.url, 4999)), copy.targets("/g4999/page"))
+            assertEquals(listOf(RouteTarget("/user/profile", "com.example.UserActivity", other.url, 20)), copy.targets("/user/profile"))
+            assertEquals(listOf(RouteSite("/user/profile", file.url, 4999)), copy.callSites("/user/profile"))
+            assertEquals(2, copy.allTargets().size)
+            assertEquals(1, copy.autowiredFields("com.example.UserActivity").size)
+            assertTrue(copy.inheritsSourceClass("com.example.UserActivity"))
+            assertEquals("com.example.LoginInterceptor", copy.interceptors().single().className)
+        }
+    }
+
+    fun testReplaceWithSameContentIsUnchanged() {
+        val table = RouteTable()
+        val file = LightVirtualFile("MainActivity.java", "")
+        assertTrue(table.replaceFile(fileRoutes(file, routes = listOf(RouteDeclaration("/main/home", "com.example.MainActivity", 10)))))
+        val version = table.version
+        // 只挪了 offset 不算变化
+        assertFalse(table.replaceFile(fileRoutes(file, routes = listOf(RouteDeclaration("/main/home", "com.example.MainActivity", 15)))))
+        assertEquals(version, table.version)
+        assertEquals(15, table.targets("/main/home").single().offset)
+    }
+
+    private fun roundTrip(table: RouteTable): RouteTable {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { table.write(it) }
+        return DataInputStream(ByteArrayInputStream(bytes.toByteArray())).use { RouteTable.read(it) }
+    }
+
+    private fun fileRoutes(
+        file: LightVirtualFile,
+        routes: List<RouteDeclaration> = emptyList(),
+        calls: List<RouteCallSite> = emptyList(),
+        extras: List<RouteExtra> = emptyList(),
+        interceptors: List<RouteInterceptor> = emptyList(),
+        providers: List<RouteProvider> = emptyList(),
+        patternCalls: List<RouteCallSite> = emptyList(),
+        inheritingClasses: List<String> = emptyList()
+    ): FileRoutes {
+        return FileRoutes(file, file.timeStamp, file.length, routes, calls, extras, interceptors, providers, patternCalls, inheritingClasses)
+    }
+}
@@ -0,0 +1,130 @@
+package com.alibaba.android.arouter.idea.extensions
+
+import com.intellij.testFramework.LightVirtualFile
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import java.nio.ByteBuffer
+
+class RouteTextScannerTest : BasePlatformTestCase() {
+
+    fun testJavaRouteAndBuildCall() {
+        val routes = scan(
+            "UserActivity.java",
+            """
+            package com.example.user;
+
+            @Route(path = "/user/profile")
+            public class UserActivity extends Activity {
+                void open() {
+                    ARouter.getInstance()
+                        .build("/main/home")
+                        .navigation();
+                }
+            }
+            """.trimIndent()
+        )
+
+        val target = routes.targets("/user/profile").single()
+        assertEquals("com.example.user.UserActivity", target.name)
+        assertEquals(3, target.line)
+        val call = routes.calls("/main/home").single()
+        assertEquals("UserActivity", call.name)
+        assertEquals(6, call.line)
+    }
+
+    fun testKotlinPositionalAndQualifiedAnnotations() {
+        val routes = scan(
+            "Pages.kt",
+            """
+            package com.example
+
+            @Route("/main/home")
+            class MainActivity : AppCompatActivity()
+
+            @com.alibaba.android.arouter.facade.annotation.Route(
+                group = "user",
+                path = "/user/settings"
+            )
+            object SettingsService : IProvider
+            """.trimIndent()
+        )
+
+        assertEquals("com.example.MainActivity", routes.targets("/main/home").single().name)
+        assertEquals("com.example.SettingsService", routes.targets("/user/settings").single().name)
+        assertEmpty(routes.targets("/user"))
+    }
+
+    fun testCommentsAndStringsAreSkipped() {
+        val routes = scan(
+            "Fake.java",
+            """
+            package com.example;
+
+            // @Route(path = "/fake/line")
+            /* @Route(path = "/fake/block")
+               ARouter.getInstance().build("/fake/call"); */
+            class Fake {
+                String text = "@Route(path = \"/fake/string\") .build(\"/fake/string\")";
+                char quote = '"';
+                void open() { ARouter.getInstance().build("/real/call"); }
+            }
+            """.trimIndent()
+        )
+
+        assertEmpty(routes.targets("/fake/line"))
+        assertEmpty(routes.targets("/fake/block"))
+        assertEmpty(routes.targets("/fake/string"))
+        assertEmpty(routes.calls("/fake/call"))
+        assertEmpty(routes.calls("/fake/string"))
+        assertEquals(8, routes.calls("/real/call").single().line)
+    }
+
+    fun testOnlyLiteralBuildCallsAreRecorded() {
+        val routes = scan(
+            "Caller.kt",
+            """
+            fun open(id: String) {
+                ARouter.getInstance().build(PATH).navigation()
+                ARouter.getInstance().build("/user/" + id).navigation()
+                ARouter.getInstance().build("relative/path").navigation()
+                build("/no/receiver")
+                ARouter.getInstance().build( "/user/profile" ).navigation()
+            }
+            """.trimIndent()
+        )
+
+        assertEmpty(routes.calls("/user/"))
+        assertEmpty(routes.calls("/relative/path"))
+        assertEmpty(routes.calls("/no/receiver"))
+        assertEquals(5, routes.calls("/user/profile").single().line)
+    }
+
+    fun testClassLiteralDoesNotTakePendingRoute() {
+        val routes = scan(
+            "Detail.kt",
+            """
+            package com.example
+
+            @Route(path = "/detail/page", extras = Flags.LOGIN)
+            @Interceptors(LoginInterceptor::class)
+            class DetailActivity {
+                val type = Foo::class
+            }
+            """.trimIndent()
+        )
+
+        assertEquals("com.example.DetailActivity", routes.targets("/detail/page").single().name)
+    }
+
+    fun testTargetsAreLookedUpByNormalizedPath() {
+        val routes = scan("Home.java", "@Route(path = \"/main/home/\") class Home {}")
+
+        assertEquals("Home", routes.targets("main//home").single().name)
+    }
+
+    private fun scan(name: String, text: String): ProvisionalRoutes {
+        val file = LightVirtualFile(name, text)
+        val routes = ProvisionalRoutes()
+        RouteTextScanner.scan(ByteBuffer.wrap(text.toByteArray(Charsets.UTF_8)), file, routes)
+        return routes
+    }
+}